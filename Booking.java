@@ -0,0 +1,38 @@
+package edu.yu.cs.intro.orderManagement;
+
+/**
+ * A slot on a ServiceProvider's calendar that was booked to perform a Service for an order
+ */
+public class Booking {
+    private ServiceProvider serviceProvider;
+    private Service service;
+    private int startHour;
+
+    protected Booking(ServiceProvider serviceProvider, Service service, int startHour){
+        this.serviceProvider = serviceProvider;
+        this.service = service;
+        this.startHour = startHour;
+    }
+
+    public ServiceProvider getServiceProvider(){
+        return this.serviceProvider;
+    }
+
+    public Service getService(){
+        return this.service;
+    }
+
+    /**
+     * @return the hour the booking starts at, in whole hours since the epoch
+     */
+    public int getStartHour(){
+        return this.startHour;
+    }
+
+    /**
+     * @return the hour the booking ends at (exclusive), in whole hours since the epoch
+     */
+    public int getEndHour(){
+        return this.startHour + ServiceProvider.hoursNeeded(service);
+    }
+}
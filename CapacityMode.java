@@ -0,0 +1,15 @@
+package edu.yu.cs.intro.orderManagement;
+
+/**
+ * How the order management system decides whether a ServiceProvider can take on another service order
+ */
+public enum CapacityMode {
+    /**
+     * a provider works on one order at a time, and is free again once 3 other orders have been placed
+     */
+    ORDER_COUNT,
+    /**
+     * a provider is booked for the number of hours the service takes, in the earliest free slot on its calendar
+     */
+    CALENDAR
+}
@@ -0,0 +1,85 @@
+package edu.yu.cs.intro.orderManagement;
+
+/**
+ * A single change to the state of the warehouse or of a service provider, as published on the {@link ChangeFeed}.
+ * Events are compact: what changed (the type), which product or provider it changed for (the key), and the new value.
+ * Stock events also carry the site id of the warehouse they happened in.
+ */
+public class ChangeEvent {
+
+    public enum Type {
+        /** a product was added to the warehouse. key is the product number, value is its initial stock level */
+        PRODUCT_ADDED,
+        /** the stock of a product changed. key is the product number, value is the new stock level */
+        STOCK_LEVEL,
+        /** the default stock level of a product changed. key is the product number, value is the new default stock level */
+        DEFAULT_STOCK_LEVEL,
+        /** a product was put on the "do not restock" list. key is the product number, value is its current stock level */
+        DO_NOT_RESTOCK,
+        /** a service provider was assigned to a customer. key is the provider id, value is unused */
+        PROVIDER_ASSIGNED,
+        /** a service provider was freed up. key is the provider id, value is unused */
+        PROVIDER_RELEASED,
+        /** a service provider was booked on its calendar. key is the provider id, value is the hour the booking starts at */
+        PROVIDER_BOOKED,
+        /** a booking of a service provider was cancelled. key is the provider id, value is the hour the cancelled booking started at */
+        PROVIDER_UNBOOKED
+    }
+
+    private static final Type[] TYPES = Type.values();
+
+    private long sequence;
+    private Type type;
+    private int site;
+    private int key;
+    private int value;
+
+    protected ChangeEvent(long sequence, Type type, int site, int key, int value){
+        this.sequence = sequence;
+        this.type = type;
+        this.site = site;
+        this.key = key;
+        this.value = value;
+    }
+
+    /**
+     * @return the position of this event in the feed. Sequence numbers start at zero and increase by one with every event.
+     */
+    public long getSequence(){
+        return this.sequence;
+    }
+
+    public Type getType(){
+        return this.type;
+    }
+
+    /**
+     * @return the site id of the warehouse a stock event happened in, see {@link Warehouse#getSiteId()}, starting at 1. Zero for service provider events.
+     */
+    public int getSite(){
+        return this.site;
+    }
+
+    /**
+     * @return the product number or provider id this event is about, depending on the type
+     */
+    public int getKey(){
+        return this.key;
+    }
+
+    /**
+     * @return the new value, see {@link Type} for what it means for each type
+     */
+    public int getValue(){
+        return this.value;
+    }
+
+    static Type typeOf(int ordinal){
+        return TYPES[ordinal];
+    }
+
+    @Override
+    public String toString(){
+        return sequence + ":" + type + "(" + site + "," + key + "," + value + ")";
+    }
+}
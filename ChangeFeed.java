@@ -0,0 +1,213 @@
+package edu.yu.cs.intro.orderManagement;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Publishes changes to stock levels and service provider state to downstream subscribers (storefront caches, analytics, replicas).
+ * 1) events are written to a fixed size ring buffer. Publishing never allocates and never waits for a subscriber.
+ * 2) each subscriber pulls events in batches at its own pace, starting from any sequence number still in the buffer, so it can resume where it left off.
+ * 3) a subscriber that falls more than the buffer capacity behind loses the oldest events. It is told how many it missed, and should
+ * resync from a snapshot (e.g. {@link OrderManagementSystem#getProductCatalog()} and {@link Warehouse#getStockLevel(int)}).
+ * Subscribers read without taking the publisher's lock. Each slot carries the sequence number of the event in it, which the publisher
+ * clears before overwriting the slot and sets after, so a subscriber can tell an intact event from one overwritten while it was reading.
+ */
+public class ChangeFeed {
+
+    protected static final int DEFAULT_CAPACITY = 1 << 14;
+
+    private final int mask;
+    private final byte[] types;
+    private final int[] sites;
+    private final int[] keys;
+    private final int[] values;
+    /**
+     * the sequence number of the event in each slot, or -1 while the slot is being written
+     */
+    private final AtomicLongArray stamps;
+    /**
+     * sequence number the next event will be published with. Written only while holding the lock, read by subscribers without it.
+     */
+    private volatile long nextSequence;
+
+    protected ChangeFeed(){
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity how many of the most recent events to retain. Rounded up to a power of two.
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    protected ChangeFeed(int capacity){
+        if(capacity <= 0 || capacity > (1 << 30)){
+            throw new IllegalArgumentException();
+        }
+        int size = Integer.highestOneBit(capacity);
+        if(size < capacity){
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.types = new byte[size];
+        this.sites = new int[size];
+        this.keys = new int[size];
+        this.values = new int[size];
+        this.stamps = new AtomicLongArray(size);
+        for(int i = 0; i < size; i++){
+            stamps.set(i, -1);
+        }
+    }
+
+    /**
+     * Append an event that isn't about a particular warehouse to the feed, overwriting the oldest one if the buffer is full
+     * @param type
+     * @param key
+     * @param value
+     */
+    protected void publish(ChangeEvent.Type type, int key, int value){
+        publish(type, 0, key, value);
+    }
+
+    /**
+     * Append an event to the feed, overwriting the oldest one if the buffer is full
+     * @param type
+     * @param site the site id of the warehouse the event is about
+     * @param key
+     * @param value
+     */
+    protected synchronized void publish(ChangeEvent.Type type, int site, int key, int value){
+        long sequence = nextSequence;
+        int slot = (int)(sequence & mask);
+        stamps.set(slot, -1);
+        //keep the writes below from being reordered before the slot is marked as being written
+        VarHandle.releaseFence();
+        types[slot] = (byte)type.ordinal();
+        sites[slot] = site;
+        keys[slot] = key;
+        values[slot] = value;
+        stamps.set(slot, sequence);
+        nextSequence = sequence + 1;
+    }
+
+    /**
+     * @return the sequence number the next published event will get
+     */
+    public long getNextSequence(){
+        return nextSequence;
+    }
+
+    /**
+     * @return the sequence number of the oldest event still in the buffer
+     */
+    public long getOldestSequence(){
+        return Math.max(0, nextSequence - capacity());
+    }
+
+    /**
+     * @return how many events the buffer retains
+     */
+    public int capacity(){
+        return mask + 1;
+    }
+
+    /**
+     * @return a subscription that starts with the next event to be published
+     */
+    public Subscription subscribe(){
+        return new Subscription(nextSequence);
+    }
+
+    /**
+     * @param fromSequence the sequence number of the first event to receive, e.g. one past the last event a previous subscription processed
+     * @return a subscription that starts at the given sequence number
+     * @throws IllegalArgumentException if fromSequence is negative or has not been published yet and is not the next sequence number
+     */
+    public Subscription subscribe(long fromSequence){
+        if(fromSequence < 0 || fromSequence > nextSequence){
+            throw new IllegalArgumentException();
+        }
+        return new Subscription(fromSequence);
+    }
+
+    /**
+     * A subscriber's position in the feed. Not thread safe - each consumer thread should use its own subscription.
+     */
+    public class Subscription {
+        private long cursor;
+        private long missedEvents;
+
+        private Subscription(long cursor){
+            this.cursor = cursor;
+        }
+
+        /**
+         * Take the next batch of events, without waiting for new ones to be published
+         * @param maxBatchSize the most events to return
+         * @return the events, in sequence order. Empty if the subscriber is caught up.
+         */
+        public List<ChangeEvent> poll(int maxBatchSize){
+            if(maxBatchSize <= 0){
+                throw new IllegalArgumentException();
+            }
+            long published = nextSequence;
+            skipOverwritten(published);
+            long end = Math.min(published, cursor + maxBatchSize);
+            List<ChangeEvent> batch = new ArrayList<>((int)(end - cursor));
+            for(long sequence = cursor; sequence < end; sequence++){
+                int slot = (int)(sequence & mask);
+                if(stamps.get(slot) != sequence){
+                    missedEvents++;
+                    continue;
+                }
+                ChangeEvent.Type type = ChangeEvent.typeOf(types[slot]);
+                int site = sites[slot];
+                int key = keys[slot];
+                int value = values[slot];
+                //keep the reads above from being reordered after the stamp is checked again
+                VarHandle.acquireFence();
+                if(stamps.get(slot) != sequence){
+                    //the publisher wrapped around and overwrote the slot while we were reading it
+                    missedEvents++;
+                    continue;
+                }
+                batch.add(new ChangeEvent(sequence, type, site, key, value));
+            }
+            cursor = end;
+            return batch;
+        }
+
+        /**
+         * @return the sequence number of the next event this subscription will return. Pass it to {@link ChangeFeed#subscribe(long)} to resume later.
+         */
+        public long getSequence(){
+            return cursor;
+        }
+
+        /**
+         * @return how many events were overwritten before this subscriber read them
+         */
+        public long getMissedEvents(){
+            return missedEvents;
+        }
+
+        /**
+         * @return how many published events this subscriber has not read yet
+         */
+        public long getLag(){
+            return nextSequence - cursor;
+        }
+
+        /**
+         * Jump over events that are certainly gone. The oldest retained event may be getting overwritten right now,
+         * which the slot's stamp catches when it is read.
+         */
+        private void skipOverwritten(long published){
+            long oldest = published - capacity();
+            if(cursor < oldest){
+                missedEvents += oldest - cursor;
+                cursor = oldest;
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package edu.yu.cs.intro.orderManagement;
+
+/**
+ * Estimates how fast each product sells from the order lines the order management system fulfills, and periodically adjusts
+ * each product's default stock level to match, within configurable bounds.
+ * 1) demand is counted in a count-min sketch - a fixed number of counters no matter how many products there are - whose counts decay
+ * exponentially every period, so each estimate is an exponentially weighted moving average of the product's demand per period.
+ * 2) recording an order line costs a constant number of counter updates. Decay is applied lazily through a common scale factor, so it doesn't touch every counter each period.
+ * 3) at the end of each period, the products ordered during the period are adjusted, along with a slice of the rest of the catalog,
+ * so products that stopped selling have their stock level lowered over time too.
+ * Ending a period is not constant time: it makes up to twice adjustmentsPerPeriod adjustments, each of which visits every warehouse carrying
+ * the product and may publish a change event. The work is bounded, but it is done inline by the order that completes the period, see {@link #endPeriod(WarehouseRouter)}.
+ * The new default stock level of a product is its estimated demand per period times the number of periods of demand to keep in stock.
+ * Since the estimate covers demand across all warehouses, that level is set only at the cheapest warehouse that can restock the product,
+ * which routing sends the product's demand to first. Every other warehouse that can restock it is set to the minimum level, so total stock
+ * doesn't grow with the number of warehouses.
+ * While the tracker is new, the moving average is corrected for having started at zero, so the first periods don't underestimate demand and lower stock levels.
+ */
+public class DemandTracker {
+
+    protected static final int DEFAULT_PERIOD_LINES = 1000;
+    protected static final double DEFAULT_COVER_PERIODS = 2.0;
+    protected static final double DEFAULT_SMOOTHING = 0.2;
+    protected static final int DEFAULT_SKETCH_WIDTH = 1 << 14;
+    protected static final int DEFAULT_ADJUSTMENTS_PER_PERIOD = 1024;
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+    private static final double MAX_SCALE = 1e100;
+
+    private final int minLevel;
+    private final int maxLevel;
+    private final int periodLines;
+    private final double coverPeriods;
+    private final double smoothing;
+
+    private final double[] counts;
+    private final int widthMask;
+    /**
+     * counts are stored multiplied by this. Growing it by 1/(1 - smoothing) every period decays every count at once.
+     */
+    private double scale;
+    /**
+     * (1 - smoothing) to the power of the number of periods so far, counting the current one. The weights of all the periods
+     * in the moving average add up to (1 - this) / smoothing, which is used to correct the estimate while the tracker is new.
+     */
+    private double unseenWeight;
+
+    private final int[] touched;
+    private final int[] touchedTable;
+    private final long[] touchedPeriod;
+    private int touchedCount;
+    private long period;
+    private int linesThisPeriod;
+    private int sweepCursor;
+
+    /**
+     * @param minLevel the lowest default stock level to set
+     * @param maxLevel the highest default stock level to set
+     */
+    protected DemandTracker(int minLevel, int maxLevel){
+        this(minLevel, maxLevel, DEFAULT_PERIOD_LINES, DEFAULT_COVER_PERIODS, DEFAULT_SMOOTHING, DEFAULT_SKETCH_WIDTH, DEFAULT_ADJUSTMENTS_PER_PERIOD);
+    }
+
+    /**
+     * @param minLevel the lowest default stock level to set
+     * @param maxLevel the highest default stock level to set
+     * @param periodLines how many order lines make up a period
+     * @param coverPeriods how many periods of demand to keep in stock
+     * @param smoothing how much weight the latest period gets in the moving average, between 0 (exclusive) and 1 (exclusive)
+     * @param sketchWidth counters per row of the sketch. Rounded up to a power of two. Wider means fewer products share a counter, so less overestimation.
+     * @param adjustmentsPerPeriod the most products ordered during a period to adjust at its end, and also how many other products to adjust
+     * @throws IllegalArgumentException if any of the arguments are out of range
+     */
+    protected DemandTracker(int minLevel, int maxLevel, int periodLines, double coverPeriods, double smoothing, int sketchWidth, int adjustmentsPerPeriod){
+        if(minLevel < 0 || maxLevel < minLevel || periodLines <= 0 || coverPeriods <= 0 || smoothing <= 0 || smoothing >= 1
+                || sketchWidth <= 0 || sketchWidth > (1 << 26) || adjustmentsPerPeriod <= 0 || adjustmentsPerPeriod > (1 << 26)){
+            throw new IllegalArgumentException();
+        }
+        this.minLevel = minLevel;
+        this.maxLevel = maxLevel;
+        this.periodLines = periodLines;
+        this.coverPeriods = coverPeriods;
+        this.smoothing = smoothing;
+        int width = powerOfTwoAtLeast(sketchWidth);
+        this.counts = new double[SKETCH_DEPTH * width];
+        this.widthMask = width - 1;
+        this.scale = 1;
+        this.unseenWeight = 1 - smoothing;
+        int tableSize = powerOfTwoAtLeast(adjustmentsPerPeriod * 2);
+        this.touched = new int[adjustmentsPerPeriod];
+        this.touchedTable = new int[tableSize];
+        this.touchedPeriod = new long[tableSize];
+        this.period = 1;
+    }
+
+    /**
+     * Record that an order line for the given quantity of the given product was fulfilled
+     * @param productNumber
+     * @param quantity
+     */
+    protected void record(int productNumber, int quantity){
+        if(quantity > 0){
+            double amount = quantity * scale;
+            for(int row = 0; row < SKETCH_DEPTH; row++){
+                counts[cell(row, productNumber)] += amount;
+            }
+            markTouched(productNumber);
+        }
+        linesThisPeriod++;
+    }
+
+    /**
+     * @return true if a full period of order lines has been recorded since the last call to {@link #endPeriod(WarehouseRouter)}
+     */
+    protected boolean isPeriodOver(){
+        return linesThisPeriod >= periodLines;
+    }
+
+    /**
+     * End the current period: adjust the default stock level of the products ordered during it and of the next slice of the catalog, then decay all demand estimates.
+     * Makes at most twice adjustmentsPerPeriod adjustments, each costing a pass over the warehouses carrying the product and possibly a published event.
+     * Once every few hundred periods, the scale factor is folded back into the counters, which is a pass over the whole sketch.
+     * This is the latency a caller pays once per period, on top of recording the line that ended it.
+     * @param warehouses the warehouses whose default stock levels to adjust
+     */
+    protected void endPeriod(WarehouseRouter warehouses){
+        for(int i = 0; i < touchedCount; i++){
+            adjust(warehouses, touched[i]);
+        }
+        int productCount = warehouses.getProductCount();
+        int sweep = Math.min(touched.length, productCount);
+        for(int i = 0; i < sweep; i++){
+            if(sweepCursor >= productCount){
+                sweepCursor = 0;
+            }
+            adjust(warehouses, warehouses.getProductNumber(sweepCursor++));
+        }
+        touchedCount = 0;
+        period++;
+        linesThisPeriod = 0;
+        scale /= 1 - smoothing;
+        unseenWeight *= 1 - smoothing;
+        if(scale > MAX_SCALE){
+            for(int i = 0; i < counts.length; i++){
+                counts[i] /= scale;
+            }
+            scale = 1;
+        }
+    }
+
+    /**
+     * @param productNumber
+     * @return the estimated demand for the product per period, never lower than the real moving average
+     */
+    protected double getDemandRate(int productNumber){
+        double estimate = Double.MAX_VALUE;
+        for(int row = 0; row < SKETCH_DEPTH; row++){
+            estimate = Math.min(estimate, counts[cell(row, productNumber)]);
+        }
+        return estimate / scale * smoothing / (1 - unseenWeight);
+    }
+
+    /**
+     * @param productNumber
+     * @return the default stock level this tracker would set for the product
+     */
+    protected int getTargetStockLevel(int productNumber){
+        //the rate carries rounding error from the scale and bias correction, so an exact demand of n can come out a hair above n
+        double target = Math.ceil(getDemandRate(productNumber) * coverPeriods * (1 - 1e-9));
+        return (int)Math.max(minLevel, Math.min(maxLevel, target));
+    }
+
+    private void adjust(WarehouseRouter warehouses, int productNumber){
+        if(warehouses.isRestockable(productNumber)){
+            warehouses.setDefaultStockLevels(productNumber, getTargetStockLevel(productNumber), minLevel);
+        }
+    }
+
+    /**
+     * Remember that the product was ordered this period, unless it already is or the period's list is full
+     */
+    private void markTouched(int productNumber){
+        if(touchedCount == touched.length){
+            return;
+        }
+        int mask = touchedTable.length - 1;
+        int slot = mix(productNumber, SEEDS[0]) & mask;
+        while(touchedPeriod[slot] == period){
+            if(touchedTable[slot] == productNumber){
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        touchedPeriod[slot] = period;
+        touchedTable[slot] = productNumber;
+        touched[touchedCount++] = productNumber;
+    }
+
+    private int cell(int row, int productNumber){
+        return row * (widthMask + 1) + (mix(productNumber, SEEDS[row]) & widthMask);
+    }
+
+    private static int mix(int key, int seed){
+        int h = (key ^ seed) * 0x9E3779B9;
+        h ^= h >>> 15;
+        h *= 0x85EBCA6B;
+        return h ^ (h >>> 13);
+    }
+
+    private static int powerOfTwoAtLeast(int n){
+        int size = Integer.highestOneBit(n);
+        return size < n ? size << 1 : size;
+    }
+}
@@ -0,0 +1,103 @@
+package edu.yu.cs.intro.orderManagement;
+
+/**
+ * A map from int to int that stores its keys and values in primitive arrays, so lookups and updates of existing keys never allocate
+ * (unlike a Map&lt;Integer,Integer&gt;, which boxes every key outside the small Integer cache).
+ * Uses open addressing with linear probing. Entries can't be removed.
+ */
+class IntIntMap {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+
+    IntIntMap(){
+        this.keys = new int[DEFAULT_CAPACITY];
+        this.values = new int[DEFAULT_CAPACITY];
+        this.used = new boolean[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * @param key
+     * @param defaultValue
+     * @return the value mapped to the given key, or defaultValue if there is none
+     */
+    int get(int key, int defaultValue){
+        int slot = find(key);
+        return used[slot] ? values[slot] : defaultValue;
+    }
+
+    /**
+     * @param key
+     * @return true if the given key is mapped to a value
+     */
+    boolean containsKey(int key){
+        return used[find(key)];
+    }
+
+    /**
+     * Map the given key to the given value, replacing any previous value
+     * @param key
+     * @param value
+     * @return true if the key was not in the map before
+     */
+    boolean put(int key, int value){
+        int slot = find(key);
+        if(used[slot]){
+            values[slot] = value;
+            return false;
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        if(size * 4 > keys.length * 3){
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * @return how many keys are in the map
+     */
+    int size(){
+        return size;
+    }
+
+    /**
+     * @return the slot holding the given key, or the empty slot where it would be inserted
+     */
+    private int find(int key){
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while(used[slot] && keys[slot] != key){
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow(){
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        for(int i = 0; i < oldKeys.length; i++){
+            if(oldUsed[i]){
+                int slot = find(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int mix(int key){
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -14,11 +14,35 @@ public class Order {
      * initializes instance variables
      */
     private Map<Item,Integer> orders;
+    /**
+     * the items in the order, in the order they were added, so they can be walked by index without allocating an iterator or array
+     */
+    private Item[] items;
     private boolean completed;
+    private String orderId;
+    private List<Booking> bookings;
 
     public Order(){
+        this(null);
+    }
+
+    /**
+     * @param orderId client-supplied id of the order. A retry of the same order must reuse the same id so the
+     * order management system can recognize it and not fulfill it twice. May be null, in which case the order is never deduplicated.
+     */
+    public Order(String orderId){
         this.orders = new HashMap<>();
+        this.items = new Item[4];
         this.completed = false;
+        this.orderId = orderId;
+        this.bookings = new ArrayList<>();
+    }
+
+    /**
+     * @return the client-supplied id of this order, or null if none was given
+     */
+    public String getOrderId(){
+        return this.orderId;
     }
 
     /**
@@ -30,6 +54,24 @@ public class Order {
         return array;
     }
 
+    /**
+     * @return how many different items (products and services) are in the order
+     */
+    protected int getItemCount(){
+        return orders.size();
+    }
+
+    /**
+     * @param index
+     * @return the item at the given index, counting in the order items were first added to the order
+     */
+    protected Item getItem(int index){
+        if(index < 0 || index >= orders.size()){
+            throw new IndexOutOfBoundsException();
+        }
+        return items[index];
+    }
+
     /**
      * @param b
      * @return the quantity of the given item ordered in this order. Zero if the item is not in the order.
@@ -44,7 +86,13 @@ public class Order {
      * @param quantity
      */
     public void addToOrder(Item item, int quantity){
-        orders.put(item,quantity);
+        if(orders.put(item,quantity) == null){
+            int index = orders.size() - 1;
+            if(index == items.length){
+                items = Arrays.copyOf(items, items.length * 2);
+            }
+            items[index] = item;
+        }
     }
 
     /**
@@ -78,6 +126,29 @@ public class Order {
         return totalPrice;
     }
 
+    /**
+     * @return the calendar slots booked for the services in this order. Only filled in when services are scheduled by calendar, see {@link CapacityMode#CALENDAR}
+     */
+    public List<Booking> getBookings(){
+        return Collections.unmodifiableList(bookings);
+    }
+
+    /**
+     * Record a calendar slot booked for a service in this order
+     * @param booking
+     */
+    protected void addBooking(Booking booking){
+        bookings.add(booking);
+    }
+
+    /**
+     * Forget the calendar slots booked for this order from the given index on, e.g. the ones booked by a placement that failed
+     * @param fromIndex
+     */
+    protected void removeBookings(int fromIndex){
+        bookings.subList(fromIndex, bookings.size()).clear();
+    }
+
     /**
      * @return has the order been completed by the order management system?
      */
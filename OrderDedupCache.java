@@ -0,0 +1,175 @@
+package edu.yu.cs.intro.orderManagement;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers the ids of recently placed orders so that a client retrying an order does not get it fulfilled twice.
+ * 1) is safe to use from multiple threads
+ * 2) tracks whether the order with each id is still being placed, or was placed successfully
+ * 3) is bounded - an id is forgotten once it is older than the time to live, or once more than maxEntries newer ids have been recorded
+ */
+public class OrderDedupCache {
+
+    protected static final int DEFAULT_MAX_ENTRIES = 100_000;
+    protected static final long DEFAULT_TTL_MILLIS = 10 * 60 * 1000;
+
+    /**
+     * The result of {@link #claim(String)}
+     */
+    protected enum Status {
+        /** the id was not in the cache, and is now recorded as in flight - the caller should place the order */
+        CLAIMED,
+        /** an order with the id is still being placed */
+        IN_FLIGHT,
+        /** an order with the id was placed successfully */
+        DONE
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<String,Entry> placedAt;
+    /**
+     * every entry ever claimed, oldest first, including ones since released. Its length is what bounds the cache.
+     */
+    private final ConcurrentLinkedQueue<Entry> insertionOrder;
+    private final AtomicInteger insertionOrderLength;
+
+    protected OrderDedupCache(){
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MILLIS);
+    }
+
+    /**
+     * @param maxEntries the most order ids to remember at once
+     * @param ttlMillis how long to remember an order id for
+     * @throws IllegalArgumentException if either argument is not positive
+     */
+    protected OrderDedupCache(int maxEntries, long ttlMillis){
+        if(maxEntries <= 0 || ttlMillis <= 0){
+            throw new IllegalArgumentException();
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlMillis * 1_000_000;
+        this.placedAt = new ConcurrentHashMap<>();
+        this.insertionOrder = new ConcurrentLinkedQueue<>();
+        this.insertionOrderLength = new AtomicInteger();
+    }
+
+    /**
+     * Record that the order with the given id is being placed, unless an order with that id already was or is being placed
+     * @param orderId
+     * @return {@link Status#CLAIMED} if the id was recorded as in flight, otherwise the status of the order already recorded with that id
+     */
+    protected Status claim(String orderId){
+        long now = now();
+        evict(now);
+        Entry entry = new Entry(orderId, now);
+        Entry previous = placedAt.putIfAbsent(orderId, entry);
+        if(previous != null){
+            if(now - previous.time < ttlNanos){
+                return previous.done ? Status.DONE : Status.IN_FLIGHT;
+            }
+            //expired but not evicted yet, take it over unless another thread just did
+            if(!placedAt.replace(orderId, previous, entry)){
+                return Status.IN_FLIGHT;
+            }
+        }
+        insertionOrder.add(entry);
+        insertionOrderLength.incrementAndGet();
+        return Status.CLAIMED;
+    }
+
+    /**
+     * Record that the order with the given id was placed successfully, so retries of it are recognized as done
+     * @param orderId
+     */
+    protected void complete(String orderId){
+        complete(orderId, Collections.emptyList());
+    }
+
+    /**
+     * Record that the order with the given id was placed successfully, along with the bookings the placement made,
+     * so retries of it are recognized as done and can be handed the same bookings
+     * @param orderId
+     * @param bookings
+     */
+    protected void complete(String orderId, List<Booking> bookings){
+        Entry entry = placedAt.get(orderId);
+        if(entry != null){
+            entry.bookings = bookings;
+            entry.done = true;
+        }
+    }
+
+    /**
+     * @param orderId
+     * @return the bookings made by the successful placement of the order with the given id, or an empty list if it made none or the id is not remembered
+     */
+    protected List<Booking> getBookings(String orderId){
+        Entry entry = placedAt.get(orderId);
+        if(entry == null || !entry.done){
+            return Collections.emptyList();
+        }
+        return entry.bookings;
+    }
+
+    /**
+     * Forget the given order id, e.g. because placing the order failed and a retry should be allowed to go through.
+     * Does nothing if the order was already placed successfully.
+     * @param orderId
+     */
+    protected void release(String orderId){
+        Entry entry = placedAt.get(orderId);
+        if(entry != null && !entry.done){
+            placedAt.remove(orderId, entry);
+        }
+    }
+
+    /**
+     * @return how many order ids are currently remembered
+     */
+    protected int size(){
+        return placedAt.size();
+    }
+
+    /**
+     * @return the current time in nanoseconds, from an arbitrary origin
+     */
+    protected long now(){
+        return System.nanoTime();
+    }
+
+    /**
+     * Drop entries from the head of the insertion queue while they are expired or the queue is full.
+     * The queue still holds the entries of released ids, so bounding its length, rather than the map's size, is what keeps
+     * a storm of failing orders from growing it for a whole time to live.
+     * Only removes the map entry if it is the same entry the queue holds, so an id that was released and claimed again is not dropped early.
+     */
+    private void evict(long now){
+        synchronized(insertionOrder){
+            Entry head = insertionOrder.peek();
+            while(head != null && (now - head.time >= ttlNanos || insertionOrderLength.get() >= maxEntries)){
+                insertionOrder.poll();
+                insertionOrderLength.decrementAndGet();
+                placedAt.remove(head.orderId, head);
+                head = insertionOrder.peek();
+            }
+        }
+    }
+
+    private static class Entry {
+        private final String orderId;
+        private final long time;
+        /** written before done, so reading done first makes it visible */
+        private List<Booking> bookings;
+        private volatile boolean done;
+
+        private Entry(String orderId, long time){
+            this.orderId = orderId;
+            this.time = time;
+        }
+    }
+}
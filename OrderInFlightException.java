@@ -0,0 +1,12 @@
+package edu.yu.cs.intro.orderManagement;
+
+/**
+ * Thrown when an order is placed while an order with the same id is still being placed. Unlike a rejected order,
+ * the client should retry later - the outcome of the original placement is not known yet.
+ */
+public class OrderInFlightException extends IllegalStateException {
+
+    public OrderInFlightException(String orderId){
+        super("order " + orderId + " is still being placed");
+    }
+}
@@ -7,17 +7,28 @@ import java.util.HashSet;
 
 
 /**
- * Takes orders, manages the warehouse as well as service providers
+ * Takes orders, manages the warehouses as well as service providers
  */
 public class OrderManagementSystem {
     
     int defaultProductStockLevel;
     Set<Product> products;
     Set<ServiceProvider> serviceProviders;
-    Warehouse warehouse;
+    WarehouseRouter warehouses;
     
-    Map<Service, Set<ServiceProvider>> serviceToServiceProviders;
+    Map<Service, ServiceProvider[]> serviceToServiceProviders;
+    ProviderAvailabilityIndex providerAvailability;
+    ServiceProvider[] allServiceProviders;
+    int serviceProviderCount;
+    long reservationStamp;
     Set<Item> discontinueItem;
+    OrderDedupCache placedOrders;
+    ChangeFeed changeFeed;
+    CapacityMode capacityMode;
+    int bookingHorizonHours;
+    DemandTracker demandTracker;
+
+    static final int DEFAULT_BOOKING_HORIZON_HOURS = 4 * 7 * 24;
 
 
     /**
@@ -33,25 +44,46 @@ public class OrderManagementSystem {
     }
 
     /**
-     * 1) populate the warehouse with the products.
+     * Uses the given warehouse as the only warehouse and calls the other constructor
+     *
+     * @param products
+     * @param defaultProductStockLevel
+     * @param serviceProviders
+     * @param warehouse                - the warehouse that we will store our products in
+     */
+    public OrderManagementSystem(Set<Product> products, int defaultProductStockLevel, Set<ServiceProvider> serviceProviders, Warehouse warehouse) {
+        this(products,defaultProductStockLevel,serviceProviders,new WarehouseRouter(warehouse));
+
+    }
+
+    /**
+     * 1) populate the warehouses with the products. Every product is stocked in every warehouse, and each order line is routed to the warehouses that fulfill it, see {@link WarehouseRouter}.
      * 2) retrieve set of services provided by the ServiceProviders, to save it as the set of services the business can provide
      * 3) create map of services to the List of service providers that provide them
      *
-     * @param products                 - set of products to populate the warehouse with
-     * @param defaultProductStockLevel - the default number of products to stock for any product
+     * @param products                 - set of products to populate every warehouse with
+     * @param defaultProductStockLevel - the default number of products to stock for any product, in each warehouse
      * @param serviceProviders         - set of service providers and the services they provide, to make up the services arm of the business
-     * @param warehouse                - the warehouse that we will store our products in
+     * @param warehouses               - the warehouses that we will store our products in, with their preference costs
      */
-    public OrderManagementSystem(Set<Product> products, int defaultProductStockLevel, Set<ServiceProvider> serviceProviders, Warehouse warehouse) {
+    public OrderManagementSystem(Set<Product> products, int defaultProductStockLevel, Set<ServiceProvider> serviceProviders, WarehouseRouter warehouses) {
         this.defaultProductStockLevel = defaultProductStockLevel;
         this.products = products;
         this.serviceProviders = serviceProviders;
-        this.warehouse = warehouse;
+        this.warehouses = warehouses;
         this.serviceToServiceProviders = new HashMap<>();
+        this.providerAvailability = new ProviderAvailabilityIndex();
         this.discontinueItem = new HashSet<>();
+        this.placedOrders = new OrderDedupCache();
+        this.changeFeed = new ChangeFeed();
+        warehouses.setChangeFeed(changeFeed);
+        this.capacityMode = CapacityMode.ORDER_COUNT;
+        this.bookingHorizonHours = DEFAULT_BOOKING_HORIZON_HOURS;
+        this.allServiceProviders = serviceProviders.toArray(new ServiceProvider[serviceProviders.size()]);
+        this.serviceProviderCount = allServiceProviders.length;
 
         for(Product product : products){
-            warehouse.addNewProductToWarehouse(product, defaultProductStockLevel);
+            warehouses.addNewProduct(product, defaultProductStockLevel);
         }
         for(ServiceProvider serviceProvider : serviceProviders){
         
@@ -70,58 +102,89 @@ public class OrderManagementSystem {
      * 2a) We CAN fulfill a product order if either the warehouse currently has enough quantity in stock OR if the product is NOT on the "do not restock" list.
      *  In the case that the current quantity of a product is < the quantity in the order AND the product is NOT on the "do not restock" list, the order management system should
      *  first instruct the warehouse to restock the item, and then tell the warehouse to fulfill this order.
+     *  With several warehouses, a product line is taken from the cheapest warehouses that have it in stock, split across them if needed, see {@link WarehouseRouter#fulfill(int, int)}.
      * 3) Mark the order as completed
      * 4) Update the busy status of service providers involved...
+     * In {@link CapacityMode#CALENDAR} mode, step 1 instead books each service in the earliest free slot across all providers of that service,
+     * and rejects the order if any of them can't be booked within the booking horizon. The bookings are recorded on the order.
+     * If the order has an id and an order with the same id was already placed recently, the order is a retry: it is marked as completed
+     * without being validated or fulfilled again, and is given the bookings the original placement made. If the order with the same id is still being placed, the retry is rejected.
      * @throws IllegalArgumentException if any part of the order for PRODUCTS can't be fulfilled
      * @throws IllegalStateException if any part of the order for SERVICES can't be fulfilled
+     * @throws OrderInFlightException if an order with the same id is still being placed
      */
     public void placeOrder(Order order) {
-        
-        Collection<Service> services = new HashSet<>();
-        Collection<Product> products = new HashSet<>();
-        for(Item item : order.getItems()){
-            if(item instanceof Service){
-                services.add((Service)item);
-            }else{
-                products.add((Product)item);
+        String orderId = order.getOrderId();
+        if(orderId == null){
+            fulfillOrder(order);
+            return;
+        }
+        OrderDedupCache.Status status = placedOrders.claim(orderId);
+        if(status == OrderDedupCache.Status.DONE){
+            for(Booking booking : placedOrders.getBookings(orderId)){
+                order.addBooking(booking);
             }
+            order.setCompleted(true);
+            return;
+        }else if(status == OrderDedupCache.Status.IN_FLIGHT){
+            //the original may still fail, so the retry can't be reported as completed yet
+            throw new OrderInFlightException(orderId);
         }
-        if(validateProducts(products,order) != 0){
-            throw new IllegalArgumentException();
+        int firstBooking = order.getBookings().size();
+        try{
+            fulfillOrder(order);
+        }catch(RuntimeException e){
+            //nothing was fulfilled, so let a retry of this order go through
+            placedOrders.release(orderId);
+            throw e;
+        }
+        List<Booking> bookings = order.getBookings();
+        if(bookings.size() == firstBooking){
+            placedOrders.complete(orderId);
+        }else{
+            placedOrders.complete(orderId, new ArrayList<>(bookings.subList(firstBooking, bookings.size())));
         }
+    }
 
-        if(validateServices(services,order) != 0){
+    /**
+     * Walks the order's items by index and checks providers against a reservation stamp rather than building sets of products, services
+     * and pretend-assigned providers, so placing an order with no id in {@link CapacityMode#ORDER_COUNT} mode doesn't allocate.
+     */
+    private void fulfillOrder(Order order) {
+        if(validateProducts(order) != 0){
+            throw new IllegalArgumentException();
+        }
 
+        if(capacityMode == CapacityMode.CALENDAR){
+            if(bookServices(order) != 0){
+                throw new IllegalStateException();
+            }
+        }else if(validateServices(order) != 0){
             throw new IllegalStateException();
         }
 
-
-
-        for(Product product : products){
-
-            if(warehouse.getStockLevel(product.getItemNumber()) < order.getQuantity(product)){
-                warehouse.restock(product.getItemNumber(), order.getQuantity(product));
-
+        int itemCount = order.getItemCount();
+        for(int i = 0; i < itemCount; i++){
+            Item item = order.getItem(i);
+            if(item instanceof Product){
+                warehouses.fulfill(item.getItemNumber(),order.getQuantity(item));
+                if(demandTracker != null){
+                    demandTracker.record(item.getItemNumber(),order.getQuantity(item));
+                }
             }
-            
-            warehouse.fulfill(product.getItemNumber(),order.getQuantity(product));
-
+        }
+        //bounded, but paid by the order that happens to end the period
+        if(demandTracker != null && demandTracker.isPeriodOver()){
+            demandTracker.endPeriod(warehouses);
         }
 
-        for(Service service : services){
-
-            int counter = order.getQuantity(service);
-            for(ServiceProvider serviceProvider : serviceToServiceProviders.get(service)){
-                if(!serviceProvider.isAssigned()){
-                    serviceProvider.assignToCustomer();
-                    counter--;
-                    if(counter == 0){
-                        break;
-                    }
+        if(capacityMode == CapacityMode.ORDER_COUNT){
+            for(int i = 0; i < itemCount; i++){
+                Item item = order.getItem(i);
+                if(item instanceof Service){
+                    assignServiceProviders((Service)item, order.getQuantity(item));
                 }
-
             }
-
         }
         order.setCompleted(true);
         updateServiceProviderCounts();
@@ -129,6 +192,24 @@ public class OrderManagementSystem {
         
     }
 
+    /**
+     * Assign the given number of free providers of the given service. Walks the providers in the same order as
+     * {@link #reserveServiceProviders(Service, int, long)}, so it assigns exactly the providers validation set aside.
+     */
+    private void assignServiceProviders(Service service, int quantity) {
+        int counter = quantity;
+        for(ServiceProvider serviceProvider : serviceToServiceProviders.get(service)){
+            if(counter <= 0){
+                break;
+            }
+            if(!serviceProvider.isAssigned()){
+                serviceProvider.assignToCustomer();
+                counter--;
+            }
+
+        }
+    }
+
 
     /**
      * Validate that all the services being ordered can be provided. Make sure to check how many instances of a given service are being requested in the order, and see if we have enough providers for them.
@@ -137,30 +218,103 @@ public class OrderManagementSystem {
      * @return itemNumber of the first requested service encountered that we either do not have a provider for at all, or for which we do not have an available provider. Return 0 if all services are valid.
      */
     protected int validateServices(Collection<Service> services, Order order) {
-        Set<ServiceProvider> pretendAssign = new HashSet<>();
+        long stamp = ++reservationStamp;
         
         for(Service service : services){
-            if(!serviceToServiceProviders.containsKey(service)){
+            if(!reserveServiceProviders(service, order.getQuantity(service), stamp)){
                 return service.getItemNumber();
             }
-            int counter = order.getQuantity(service);
-            for(ServiceProvider serviceProvider : serviceToServiceProviders.get(service)){
-                if(!serviceProvider.isAssigned() && !pretendAssign.contains(serviceProvider)){
-                    pretendAssign.add(serviceProvider);
-                    counter--;
-                    if(counter == 0){
-                        break;
-                    }
-                }
+        }
+        return 0;
+    }
 
+    /**
+     * Same as {@link #validateServices(Collection, Order)}, for all the services in the order, walking the order by index
+     */
+    private int validateServices(Order order) {
+        long stamp = ++reservationStamp;
+        for(int i = 0; i < order.getItemCount(); i++){
+            Item item = order.getItem(i);
+            if(item instanceof Service && !reserveServiceProviders((Service)item, order.getQuantity(item), stamp)){
+                return item.getItemNumber();
             }
-            if(counter > 0){
-                return service.getItemNumber();
+        }
+        return 0;
+    }
+
+    /**
+     * Set aside the given number of free providers of the given service, skipping providers already set aside with the same stamp for another service in the order
+     * @return false if the service has no providers or not enough free ones
+     */
+    private boolean reserveServiceProviders(Service service, int quantity, long stamp) {
+        ServiceProvider[] providers = serviceToServiceProviders.get(service);
+        if(providers == null){
+            return false;
+        }
+        int counter = quantity;
+        for(ServiceProvider serviceProvider : providers){
+            if(counter <= 0){
+                break;
+            }
+            if(!serviceProvider.isAssigned() && !serviceProvider.isReserved(stamp)){
+                serviceProvider.reserve(stamp);
+                counter--;
+            }
+
+        }
+        return counter <= 0;
+    }
+
+    /**
+     * Book every service being ordered, each instance in the earliest free slot of the service's length across all the providers of that service.
+     * Only slots starting within the booking horizon are considered. If any instance can't be booked, the bookings made by this call are cancelled.
+     * Bookings the order already had from an earlier placement are kept.
+     * @return itemNumber of the first requested service encountered that we either do not have a provider for at all, or which can't be booked within the horizon. Return 0 if all services were booked.
+     */
+    private int bookServices(Order order) {
+        int now = currentHour();
+        int firstBooking = order.getBookings().size();
+        for(int i = 0; i < order.getItemCount(); i++){
+            Item item = order.getItem(i);
+            if(item instanceof Service && !bookService((Service)item, order.getQuantity(item), order, now)){
+                cancelBookings(order, firstBooking);
+                return item.getItemNumber();
             }
         }
         return 0;
     }
 
+    /**
+     * Book the given number of instances of the given service, recording the bookings on the order
+     * @return false if the service has no providers, or an instance couldn't be booked within the horizon
+     */
+    private boolean bookService(Service service, int quantity, Order order, int now) {
+        int horizon = now + bookingHorizonHours;
+        int hours = ServiceProvider.hoursNeeded(service);
+        for(int i = 0; i < quantity; i++){
+            ServiceProvider earliest = providerAvailability.earliestProvider(service, now, hours, horizon);
+            if(earliest == null){
+                return false;
+            }
+            order.addBooking(earliest.book(service, earliest.getCalendar().earliestStart(now, hours, horizon)));
+            providerAvailability.booked(earliest, now);
+        }
+        return true;
+    }
+
+    /**
+     * Cancel the order's bookings from the given index on, i.e. the ones made by the current placement
+     */
+    private void cancelBookings(Order order, int firstBooking) {
+        List<Booking> bookings = order.getBookings();
+        for(int i = firstBooking; i < bookings.size(); i++){
+            Booking booking = bookings.get(i);
+            booking.getServiceProvider().cancel(booking);
+            providerAvailability.cancelled(booking.getServiceProvider(), booking.getStartHour());
+        }
+        order.removeBookings(firstBooking);
+    }
+
     /**
      * validate that the requested quantity of products can be fulfilled
      * @param products being ordered in this order
@@ -171,7 +325,7 @@ public class OrderManagementSystem {
 
         for(Product product : products){
 
-            if(order.getQuantity(product) > warehouse.getStockLevel(product.getItemNumber()) && !warehouse.isRestockable(product.getItemNumber())){
+            if(!canFulfill(product, order.getQuantity(product))){
                 return product.getItemNumber();
 
             }
@@ -181,6 +335,26 @@ public class OrderManagementSystem {
         
     }
 
+    /**
+     * Same as {@link #validateProducts(Collection, Order)}, for all the products in the order, walking the order by index
+     */
+    private int validateProducts(Order order) {
+        for(int i = 0; i < order.getItemCount(); i++){
+            Item item = order.getItem(i);
+            if(item instanceof Product && !canFulfill((Product)item, order.getQuantity(item))){
+                return item.getItemNumber();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return true if the warehouses have enough of the product in stock, or can restock it
+     */
+    private boolean canFulfill(Product product, int quantity) {
+        return warehouses.canFulfill(product.getItemNumber(), quantity);
+    }
+
     /**
      * Adds new Products to the set of products that the warehouse can ship/fulfill
      * @param products the products to add to the warehouse
@@ -193,11 +367,8 @@ public class OrderManagementSystem {
             if(discontinueItem.contains(product)){
                 continue;
             }
-            try{
-                warehouse.addNewProductToWarehouse(product,defaultProductStockLevel);
+            if(warehouses.addNewProduct(product,defaultProductStockLevel)){
                 completed.add(product);
-            }catch(IllegalArgumentException e){
-
             }
             
         }
@@ -217,16 +388,25 @@ which services
             }
                 
                 if(serviceToServiceProviders.containsKey(service)){
-                    Set<ServiceProvider> value = serviceToServiceProviders.get(service);
-                    value.add(serviceProvider);
+                    ServiceProvider[] value = serviceToServiceProviders.get(service);
+                    if(!Arrays.asList(value).contains(serviceProvider)){
+                        value = Arrays.copyOf(value, value.length + 1);
+                        value[value.length - 1] = serviceProvider;
+                        serviceToServiceProviders.put(service,value);
+                    }
 
                 }else{
-                    Set<ServiceProvider> value = new HashSet<>();
-                    value.add(serviceProvider);
-                    serviceToServiceProviders.put(service,value);
+                    serviceToServiceProviders.put(service,new ServiceProvider[]{serviceProvider});
                 }
+                providerAvailability.add(serviceProvider, service);
             }
-            this.serviceProviders.add(serviceProvider);
+            if(this.serviceProviders.add(serviceProvider)){
+                if(serviceProviderCount == allServiceProviders.length){
+                    allServiceProviders = Arrays.copyOf(allServiceProviders, Math.max(serviceProviderCount * 2, 4));
+                }
+                allServiceProviders[serviceProviderCount++] = serviceProvider;
+            }
+            serviceProvider.setChangeFeed(changeFeed);
 
     }
 
@@ -235,7 +415,14 @@ which services
      * @return get the set of all the products offered/sold by this business
      */
     public Set<Product> getProductCatalog() {
-        return warehouse.getAllProductsInCatalog();
+        return warehouses.getAllProductsInCatalog();
+    }
+
+    /**
+     * @return the feed that publishes every change to stock levels and service provider assignments, for downstream systems to subscribe to
+     */
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
     }
 
     /**
@@ -256,22 +443,61 @@ which services
         discontinueItem.add(item);
         if(item instanceof Service){
             serviceToServiceProviders.remove(item);
+            providerAvailability.removeService((Service)item);
         }else{
-            warehouse.doNotRestock(item.getItemNumber());
+            warehouses.doNotRestock(item.getItemNumber());
         }
     }
 
+    /**
+     * Adjust the default stock level of products to their demand, as estimated from the orders placed from now on. See {@link DemandTracker}.
+     * Manually set default stock levels will be overridden once the tracker adjusts the product.
+     * Every placed order that completes one of the tracker's periods also runs {@link DemandTracker#endPeriod(WarehouseRouter)} before it returns,
+     * so that one order in every period takes longer to place, by a bounded amount set by the tracker's adjustmentsPerPeriod.
+     * @param demandTracker the tracker to record demand with, or null to keep default stock levels fixed
+     */
+    protected void setDemandTracker(DemandTracker demandTracker) {
+        this.demandTracker = demandTracker;
+    }
+
+    /**
+     * Choose how service providers' capacity is managed, see {@link CapacityMode}
+     * @param capacityMode
+     */
+    protected void setCapacityMode(CapacityMode capacityMode) {
+        this.capacityMode = capacityMode;
+    }
+
+    /**
+     * Set how far ahead, in hours, a service may be booked in {@link CapacityMode#CALENDAR} mode
+     * @param hours
+     * @throws IllegalArgumentException if hours is not positive
+     */
+    protected void setBookingHorizonHours(int hours) {
+        if(hours <= 0){
+            throw new IllegalArgumentException();
+        }
+        this.bookingHorizonHours = hours;
+    }
+
+    /**
+     * @return the current time, in whole hours since the epoch
+     */
+    protected int currentHour() {
+        return (int)(System.currentTimeMillis() / (60 * 60 * 1000));
+    }
+
     /**
      * Set the default product stock level for the given product
      * @param prod
      * @param level
      */
     protected void setDefaultProductStockLevel(Product prod, int level) {
-        warehouse.setDefaultStockLevel(prod.getItemNumber(),level);
+        warehouses.setDefaultStockLevel(prod.getItemNumber(),level);
     }
     private void updateServiceProviderCounts(){
-        for(ServiceProvider serviceProvider : serviceProviders){
-            serviceProvider.updateCount();
+        for(int i = 0; i < serviceProviderCount; i++){
+            allServiceProviders[i].updateCount();
         }
     }
 }
\ No newline at end of file
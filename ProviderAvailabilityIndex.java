@@ -0,0 +1,163 @@
+package edu.yu.cs.intro.orderManagement;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * For every service, keeps its providers ordered by a lower bound on the first hour each provider is free.
+ * Finding the provider with the earliest free slot walks the providers in that order and stops at the first one whose
+ * lower bound is no earlier than the best slot found so far, so it usually looks at only a handful of calendars
+ * no matter how many providers the service has.
+ * The bounds stay valid as time passes and as providers are booked, since both only push the first free hour later.
+ * Cancelling a booking can make a provider free earlier, so cancellations must be reported with {@link #cancelled(ServiceProvider, int)}.
+ */
+public class ProviderAvailabilityIndex {
+
+    private Map<Service, TreeSet<Entry>> providersByService;
+    private Map<ServiceProvider, Entry> entries;
+    /**
+     * providers whose bound turned out to be too low while searching, to tighten once the search is done
+     */
+    private List<Entry> stale;
+
+    protected ProviderAvailabilityIndex(){
+        this.providersByService = new HashMap<>();
+        this.entries = new HashMap<>();
+        this.stale = new ArrayList<>();
+    }
+
+    /**
+     * Index the given provider as a provider of the given service
+     * @param serviceProvider
+     * @param service
+     */
+    protected void add(ServiceProvider serviceProvider, Service service){
+        Entry entry = entries.get(serviceProvider);
+        if(entry == null){
+            entry = new Entry(serviceProvider);
+            entries.put(serviceProvider, entry);
+        }
+        if(entry.services.add(service)){
+            TreeSet<Entry> providers = providersByService.get(service);
+            if(providers == null){
+                providers = new TreeSet<>();
+                providersByService.put(service, providers);
+            }
+            providers.add(entry);
+        }
+    }
+
+    /**
+     * Stop indexing the given service
+     * @param service
+     */
+    protected void removeService(Service service){
+        TreeSet<Entry> providers = providersByService.remove(service);
+        if(providers != null){
+            for(Entry entry : providers){
+                entry.services.remove(service);
+            }
+        }
+    }
+
+    /**
+     * @param service
+     * @param now the earliest hour a slot may start at
+     * @param hours how many consecutive hours the slot needs
+     * @param beforeHour only consider slots starting before this hour
+     * @return the provider of the service with the earliest free slot of the given length, or null if none has one before beforeHour
+     */
+    protected ServiceProvider earliestProvider(Service service, int now, int hours, int beforeHour){
+        TreeSet<Entry> providers = providersByService.get(service);
+        if(providers == null){
+            return null;
+        }
+        ServiceProvider earliest = null;
+        int earliestStart = beforeHour;
+        for(Entry entry : providers){
+            //no provider from here on can be free before this one's bound
+            if(Math.max(entry.freeFromHour, now) >= earliestStart){
+                break;
+            }
+            ProviderCalendar calendar = entry.serviceProvider.getCalendar();
+            int start = calendar.earliestStart(now, hours, earliestStart);
+            if(start != -1){
+                earliest = entry.serviceProvider;
+                earliestStart = start;
+            }
+            if(calendar.firstFreeHour(now) > entry.freeFromHour){
+                stale.add(entry);
+            }
+        }
+        for(Entry entry : stale){
+            reindex(entry, entry.serviceProvider.getCalendar().firstFreeHour(now));
+        }
+        stale.clear();
+        return earliest;
+    }
+
+    /**
+     * Record that the given provider was just booked
+     * @param serviceProvider
+     * @param now
+     */
+    protected void booked(ServiceProvider serviceProvider, int now){
+        Entry entry = entries.get(serviceProvider);
+        if(entry != null){
+            int freeFromHour = serviceProvider.getCalendar().firstFreeHour(now);
+            if(freeFromHour > entry.freeFromHour){
+                reindex(entry, freeFromHour);
+            }
+        }
+    }
+
+    /**
+     * Record that a booking of the given provider was cancelled, which may make it free earlier than its bound says
+     * @param serviceProvider
+     * @param startHour the hour the cancelled booking started at
+     */
+    protected void cancelled(ServiceProvider serviceProvider, int startHour){
+        Entry entry = entries.get(serviceProvider);
+        if(entry != null && startHour < entry.freeFromHour){
+            reindex(entry, startHour);
+        }
+    }
+
+    private void reindex(Entry entry, int freeFromHour){
+        for(Service service : entry.services){
+            providersByService.get(service).remove(entry);
+        }
+        entry.freeFromHour = freeFromHour;
+        for(Service service : entry.services){
+            providersByService.get(service).add(entry);
+        }
+    }
+
+    private static class Entry implements Comparable<Entry> {
+        private final ServiceProvider serviceProvider;
+        private final Set<Service> services;
+        /**
+         * no hour before this one is free on the provider's calendar. Must not change while the entry is in a TreeSet.
+         */
+        private int freeFromHour;
+
+        private Entry(ServiceProvider serviceProvider){
+            this.serviceProvider = serviceProvider;
+            this.services = new HashSet<>();
+            this.freeFromHour = Integer.MIN_VALUE;
+        }
+
+        @Override
+        public int compareTo(Entry other){
+            if(this.freeFromHour != other.freeFromHour){
+                return this.freeFromHour < other.freeFromHour ? -1 : 1;
+            }
+            return this.serviceProvider.compareTo(other.serviceProvider);
+        }
+    }
+}
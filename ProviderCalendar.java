@@ -0,0 +1,135 @@
+package edu.yu.cs.intro.orderManagement;
+
+import java.util.BitSet;
+
+/**
+ * The hours a ServiceProvider is booked for. Time is measured in whole hours since the epoch.
+ * Stored as one bit per hour, starting from the earliest hour ever booked, so finding the next free
+ * stretch of hours is a couple of word-at-a-time bit scans rather than a walk over individual bookings.
+ */
+public class ProviderCalendar {
+
+    private int baseHour;
+    private BitSet booked;
+    private boolean empty;
+
+    protected ProviderCalendar(){
+        this.booked = new BitSet();
+        this.empty = true;
+    }
+
+    /**
+     * Find the earliest start of a stretch of free hours
+     * @param fromHour the earliest hour the stretch may start at
+     * @param hours how many consecutive hours are needed
+     * @param beforeHour only look for stretches starting before this hour
+     * @return the first hour of the earliest free stretch of the given length starting in [fromHour, beforeHour), or -1 if there is none
+     */
+    protected int earliestStart(int fromHour, int hours, int beforeHour){
+        if(fromHour >= beforeHour){
+            return -1;
+        }
+        if(empty){
+            return fromHour;
+        }
+        int limit = beforeHour - baseHour;
+        int start = fromHour - baseHour;
+        if(start < 0){
+            //nothing is booked before the base hour
+            int nextBooked = booked.nextSetBit(0);
+            if(nextBooked == -1 || nextBooked - start >= hours){
+                return fromHour;
+            }
+            start = nextBooked;
+        }
+        while(true){
+            start = booked.nextClearBit(start);
+            if(start >= limit){
+                return -1;
+            }
+            int nextBooked = booked.nextSetBit(start);
+            if(nextBooked == -1 || nextBooked - start >= hours){
+                return start + baseHour;
+            }
+            start = nextBooked;
+        }
+    }
+
+    /**
+     * @param fromHour
+     * @return the first hour at or after fromHour that is not booked
+     */
+    protected int firstFreeHour(int fromHour){
+        if(empty || fromHour < baseHour){
+            return fromHour;
+        }
+        return booked.nextClearBit(fromHour - baseHour) + baseHour;
+    }
+
+    /**
+     * @param startHour
+     * @param hours
+     * @return true if none of the given hours are booked
+     */
+    protected boolean isFree(int startHour, int hours){
+        if(empty){
+            return true;
+        }
+        int from = Math.max(startHour - baseHour, 0);
+        int to = startHour + hours - baseHour;
+        if(to <= from){
+            return true;
+        }
+        int nextBooked = booked.nextSetBit(from);
+        return nextBooked == -1 || nextBooked >= to;
+    }
+
+    /**
+     * Book the given hours
+     * @param startHour
+     * @param hours
+     * @throws IllegalArgumentException if hours is not positive
+     * @throws IllegalStateException if any of the given hours are already booked
+     */
+    protected void book(int startHour, int hours){
+        if(hours <= 0){
+            throw new IllegalArgumentException();
+        }
+        if(!isFree(startHour, hours)){
+            throw new IllegalStateException();
+        }
+        if(empty){
+            baseHour = startHour;
+            empty = false;
+        }else if(startHour < baseHour){
+            rebase(startHour);
+        }
+        booked.set(startHour - baseHour, startHour + hours - baseHour);
+    }
+
+    /**
+     * Free up the given hours
+     * @param startHour
+     * @param hours
+     */
+    protected void release(int startHour, int hours){
+        if(empty || hours <= 0){
+            return;
+        }
+        int from = Math.max(startHour - baseHour, 0);
+        int to = startHour + hours - baseHour;
+        if(to > from){
+            booked.clear(from, to);
+        }
+    }
+
+    private void rebase(int newBaseHour){
+        BitSet shifted = new BitSet(booked.length() + baseHour - newBaseHour);
+        int shift = baseHour - newBaseHour;
+        for(int i = booked.nextSetBit(0); i >= 0; i = booked.nextSetBit(i + 1)){
+            shifted.set(i + shift);
+        }
+        booked = shifted;
+        baseHour = newBaseHour;
+    }
+}
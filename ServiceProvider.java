@@ -20,11 +20,15 @@ public class ServiceProvider implements Comparable<ServiceProvider>{
     private Set<Service> services;
     private int count;
     private boolean currentlyAssigned;
+    private ChangeFeed changeFeed;
+    private ProviderCalendar calendar;
+    private long reservedFor;
 
     public ServiceProvider(String name, int id, Set<Service> services){
         this.name = name;
         this.id = id;
         this.services = new HashSet<Service>(services);
+        this.calendar = new ProviderCalendar();
     }
 
     public String getName(){
@@ -44,6 +48,9 @@ public class ServiceProvider implements Comparable<ServiceProvider>{
             throw new IllegalStateException();
         }
         currentlyAssigned = true;
+        if(changeFeed != null){
+            changeFeed.publish(ChangeEvent.Type.PROVIDER_ASSIGNED, id, 0);
+        }
         
     }
 
@@ -56,6 +63,58 @@ public class ServiceProvider implements Comparable<ServiceProvider>{
             throw new IllegalStateException();
         }
         currentlyAssigned = false;
+        if(changeFeed != null){
+            changeFeed.publish(ChangeEvent.Type.PROVIDER_RELEASED, id, 0);
+        }
+    }
+
+    /**
+     * Book this provider to perform the given service, starting at the given hour
+     * @param service
+     * @param startHour in whole hours since the epoch
+     * @return the booking
+     * @throws IllegalStateException if the provider is already booked for any of those hours
+     */
+    protected Booking book(Service service, int startHour){
+        calendar.book(startHour, hoursNeeded(service));
+        if(changeFeed != null){
+            changeFeed.publish(ChangeEvent.Type.PROVIDER_BOOKED, id, startHour);
+        }
+        return new Booking(this, service, startHour);
+    }
+
+    /**
+     * Cancel a booking made by {@link #book(Service, int)}, freeing up its hours
+     * @param booking
+     */
+    protected void cancel(Booking booking){
+        calendar.release(booking.getStartHour(), hoursNeeded(booking.getService()));
+        if(changeFeed != null){
+            changeFeed.publish(ChangeEvent.Type.PROVIDER_UNBOOKED, id, booking.getStartHour());
+        }
+    }
+
+    /**
+     * @return the hours this provider is booked for
+     */
+    protected ProviderCalendar getCalendar(){
+        return this.calendar;
+    }
+
+    /**
+     * @param service
+     * @return how many hours to book for the given service. A service always takes at least one hour.
+     */
+    static int hoursNeeded(Service service){
+        return Math.max(service.getNumberOfHours(), 1);
+    }
+
+    /**
+     * Publish every subsequent change to this provider's assignment on the given feed
+     * @param changeFeed the feed to publish to, or null to stop publishing
+     */
+    protected void setChangeFeed(ChangeFeed changeFeed){
+        this.changeFeed = changeFeed;
     }
 
     /**
@@ -93,6 +152,22 @@ public class ServiceProvider implements Comparable<ServiceProvider>{
         return currentlyAssigned;
     }
 
+    /**
+     * Mark this provider as set aside while validating an order, without actually assigning it
+     * @param stamp identifies the validation pass, must be different for every pass
+     */
+    protected void reserve(long stamp){
+        this.reservedFor = stamp;
+    }
+
+    /**
+     * @param stamp
+     * @return true if this provider was set aside by the validation pass with the given stamp
+     */
+    protected boolean isReserved(long stamp){
+        return this.reservedFor == stamp;
+    }
+
     @Override
     public boolean equals(Object o) {
         if(this == o){
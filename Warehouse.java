@@ -8,24 +8,46 @@ import java.util.HashSet;
 
 /**
  * Stocks products, fulfills product orders, manages stock of products.
+ * Stock levels are kept in primitive int maps, so looking up or changing the stock of a product never allocates.
  */
 public class Warehouse {
-     private Map<Integer,Integer> desiredStockLevel;
+     private IntIntMap desiredStockLevel;
      private Set<Product> allProducts;
-     private Set<Integer> doNotRestock;
-     private Map<Integer,Integer> currentStockLevel;
+     private IntIntMap doNotRestock;
+     private IntIntMap currentStockLevel;
+     private ChangeFeed changeFeed;
+     private int siteId;
 
     /**
      * create a warehouse, initialize all the instance variables
      */
     protected Warehouse(){
-        this.desiredStockLevel = new HashMap<>();
+        this.desiredStockLevel = new IntIntMap();
         this.allProducts = new HashSet<>();
-        this.doNotRestock = new HashSet<>();
-        this.currentStockLevel = new HashMap<>();
+        this.doNotRestock = new IntIntMap();
+        this.currentStockLevel = new IntIntMap();
 
     }
 
+    /**
+     * Publish every subsequent change to stock levels on the given feed
+     * @param changeFeed the feed to publish to, or null to stop publishing
+     */
+    protected void setChangeFeed(ChangeFeed changeFeed){
+        this.changeFeed = changeFeed;
+    }
+
+    /**
+     * @param siteId identifies this warehouse among the warehouses of the business, e.g. in the events it publishes. Site ids start at 1, and are assigned by the {@link WarehouseRouter} the warehouse is added to; it is 0 until then.
+     */
+    protected void setSiteId(int siteId){
+        this.siteId = siteId;
+    }
+
+    protected int getSiteId(){
+        return this.siteId;
+    }
+
     /**
      * @return all unique Products stocked in the warehouse
      */
@@ -40,12 +62,13 @@ public class Warehouse {
      * @throws IllegalArgumentException if the product is in the "do not restock" set, or if the product is already in the warehouse
      */
     protected void addNewProductToWarehouse(Product product, int desiredStockLevel){
-        if(allProducts.contains(product) || doNotRestock.contains(product.getItemNumber())){
+        if(allProducts.contains(product) || doNotRestock.containsKey(product.getItemNumber())){
             throw new IllegalArgumentException();
         }else{
             this.desiredStockLevel.put(product.getItemNumber(), desiredStockLevel);
             this.currentStockLevel.put(product.getItemNumber(), desiredStockLevel);
             this.allProducts.add(product);
+            publish(ChangeEvent.Type.PRODUCT_ADDED, product.getItemNumber(), desiredStockLevel);
 
         }
     }
@@ -61,19 +84,13 @@ the default stock level, whichever is greater question
      * @throws IllegalArgumentException if the product is in the "do not restock" set, or if it is not in the catalog
      */
     protected void restock(int productNumber, int minimum){
-        Set<Integer> productNumbers = new HashSet<>();
-        for(Product product : allProducts){
-            productNumbers.add(product.getItemNumber());
-        }
-        if(!productNumbers.contains(productNumber) || doNotRestock.contains(productNumber)){
+        if(!isRestockable(productNumber)){
             throw new IllegalArgumentException();
         }else{
-            if(currentStockLevel.get(productNumber) < minimum){
-                if(minimum < desiredStockLevel.get(productNumber)){
-                    currentStockLevel.put(productNumber, desiredStockLevel.get(productNumber));
-                }else{
-                    currentStockLevel.put(productNumber, minimum);
-                }
+            if(currentStockLevel.get(productNumber,0) < minimum){
+                int level = Math.max(minimum, desiredStockLevel.get(productNumber,0));
+                currentStockLevel.put(productNumber, level);
+                publish(ChangeEvent.Type.STOCK_LEVEL, productNumber, level);
             }
         }
         
@@ -87,11 +104,14 @@ the default stock level, whichever is greater question
      * @throws IllegalArgumentException if the product is in the "do not restock" set, or if it is not in the catalog
      */
     protected int setDefaultStockLevel(int productNumber, int quantity){
-        if(!desiredStockLevel.keySet().contains(productNumber) || doNotRestock.contains(productNumber)){
+        if(!isRestockable(productNumber)){
             throw new IllegalArgumentException();
         }
-        int oldStockLevel = desiredStockLevel.get(productNumber);
+        int oldStockLevel = desiredStockLevel.get(productNumber,0);
         desiredStockLevel.put(productNumber, quantity);
+        if(oldStockLevel != quantity){
+            publish(ChangeEvent.Type.DEFAULT_STOCK_LEVEL, productNumber, quantity);
+        }
         return oldStockLevel;
     }
 
@@ -101,7 +121,7 @@ the default stock level, whichever is greater question
      */
     protected int getStockLevel(int productNumber){
         
-        return currentStockLevel.getOrDefault(productNumber,0);
+        return currentStockLevel.get(productNumber,0);
     }
 
     /**
@@ -109,7 +129,7 @@ the default stock level, whichever is greater question
      * @return true if the given item number is in the warehouse's catalog, false if not
      */
     protected boolean isInCatalog(int itemNumber){
-        return desiredStockLevel.keySet().contains(itemNumber);
+        return desiredStockLevel.containsKey(itemNumber);
     }
 
     /**
@@ -118,7 +138,7 @@ the default stock level, whichever is greater question
      * @return false if it's not in catalog or is in the "do not restock" set. Otherwise true.
      */
     protected boolean isRestockable(int itemNumber){
-        return isInCatalog(itemNumber) && !doNotRestock.contains(itemNumber);
+        return isInCatalog(itemNumber) && !doNotRestock.containsKey(itemNumber);
     }
 
     /**
@@ -128,9 +148,12 @@ the default stock level, whichever is greater question
      */
     protected int doNotRestock(int productNumber){
 
-        this.doNotRestock.add(productNumber);
+        int stockLevel = currentStockLevel.get(productNumber,0);
+        if(this.doNotRestock.put(productNumber,1)){
+            publish(ChangeEvent.Type.DO_NOT_RESTOCK, productNumber, stockLevel);
+        }
 
-        return currentStockLevel.get(productNumber);
+        return stockLevel;
     }
 
     /**
@@ -140,7 +163,7 @@ the default stock level, whichever is greater question
      * @return false if the product is not in the catalog or there are fewer than quantity of the products in the catalog. Otherwise true.
      */
     protected boolean canFulfill(int productNumber, int quantity){
-        return isInCatalog(productNumber) && currentStockLevel.get(productNumber) >= quantity;
+        return isInCatalog(productNumber) && currentStockLevel.get(productNumber,0) >= quantity;
     }
 
     /**
@@ -153,8 +176,15 @@ the default stock level, whichever is greater question
         if(!canFulfill(productNumber,quantity)){
             throw new IllegalArgumentException();
         }else{
-            int currentQuant = currentStockLevel.get(productNumber);
+            int currentQuant = currentStockLevel.get(productNumber,0);
             currentStockLevel.put(productNumber, currentQuant - quantity);
+            publish(ChangeEvent.Type.STOCK_LEVEL, productNumber, currentQuant - quantity);
+        }
+    }
+
+    private void publish(ChangeEvent.Type type, int productNumber, int value){
+        if(changeFeed != null){
+            changeFeed.publish(type, siteId, productNumber, value);
         }
     }
 }
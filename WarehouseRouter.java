@@ -0,0 +1,456 @@
+package edu.yu.cs.intro.orderManagement;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Manages a set of warehouses (fulfillment sites), each with its own stock, and decides which of them fulfill each order line.
+ * 1) every warehouse has a preference cost - when more than one warehouse can fulfill a line, the cheaper ones are used first
+ * 2) a line is split across warehouses if no single one has enough in stock
+ * 3) if all of them together don't have enough in stock, the whole line is restocked at and fulfilled from the cheapest warehouse that can restock it
+ * For every product it keeps the warehouses that carry it, sorted by preference cost, and separately the ones that have it in stock,
+ * so routing a line only looks at warehouses it can take stock from, in order, and stops as soon as the line is covered.
+ * The in-stock lists are updated as the router fulfills and restocks, so stock of a routed product must only be changed through the router.
+ */
+public class WarehouseRouter {
+
+    private static final Warehouse[] NONE = new Warehouse[0];
+
+    private Warehouse[] warehouses;
+    private int[] costs;
+    private int warehouseCount;
+    private Set<Product> catalog;
+    /**
+     * maps a product number to the index in warehousesByProduct of the warehouses carrying it
+     */
+    private IntIntMap productSlots;
+    private Warehouse[][] warehousesByProduct;
+    /**
+     * for every slot, the warehouses with the product in stock, cheapest first. Each array has room for every warehouse carrying the product.
+     */
+    private Warehouse[][] inStockByProduct;
+    private int[] inStockCounts;
+    /**
+     * for every slot, the index in warehousesByProduct of the cheapest warehouse that can restock the product, or -1 if none can
+     */
+    private int[] firstRestockable;
+    private int[] productNumbers;
+    /**
+     * maps each warehouse to its index in warehouses and costs
+     */
+    private Map<Warehouse,Integer> indexes;
+    private ChangeFeed changeFeed;
+
+    protected WarehouseRouter(){
+        this.warehouses = new Warehouse[4];
+        this.costs = new int[4];
+        this.catalog = new HashSet<>();
+        this.productSlots = new IntIntMap();
+        this.warehousesByProduct = new Warehouse[16][];
+        this.inStockByProduct = new Warehouse[16][];
+        this.inStockCounts = new int[16];
+        this.firstRestockable = new int[16];
+        this.productNumbers = new int[16];
+        this.indexes = new IdentityHashMap<>();
+    }
+
+    /**
+     * create a router for a single warehouse
+     * @param warehouse
+     */
+    protected WarehouseRouter(Warehouse warehouse){
+        this();
+        addWarehouse(warehouse, 0);
+    }
+
+    /**
+     * Add a warehouse, along with any products already stocked in it
+     * @param warehouse
+     * @param preferenceCost lower cost warehouses are used first
+     * @throws IllegalArgumentException if the warehouse was already added to this or another router
+     */
+    protected void addWarehouse(Warehouse warehouse, int preferenceCost){
+        //a warehouse has a site id once it belongs to a router, and can't be routed by two of them
+        if(warehouse.getSiteId() != 0){
+            throw new IllegalArgumentException();
+        }
+        if(warehouseCount == warehouses.length){
+            warehouses = Arrays.copyOf(warehouses, warehouseCount * 2);
+            costs = Arrays.copyOf(costs, warehouseCount * 2);
+        }
+        //site ids start at 1, leaving 0 for change events that aren't about a warehouse
+        warehouse.setSiteId(warehouseCount + 1);
+        warehouse.setChangeFeed(changeFeed);
+        warehouses[warehouseCount] = warehouse;
+        costs[warehouseCount] = preferenceCost;
+        indexes.put(warehouse, warehouseCount);
+        warehouseCount++;
+        for(Product product : warehouse.getAllProductsInCatalog()){
+            catalog.add(product);
+            index(product.getItemNumber(), warehouse);
+        }
+    }
+
+    /**
+     * @param warehouse
+     * @param preferenceCost the new preference cost of the warehouse
+     * @throws IllegalArgumentException if the warehouse was never added
+     */
+    protected void setPreferenceCost(Warehouse warehouse, int preferenceCost){
+        int index = indexOf(warehouse);
+        if(index == -1){
+            throw new IllegalArgumentException();
+        }
+        costs[index] = preferenceCost;
+        for(int slot = 0; slot < productSlots.size(); slot++){
+            Arrays.sort(warehousesByProduct[slot], (a, b) -> Integer.compare(costOf(a), costOf(b)));
+            refresh(slot);
+        }
+    }
+
+    /**
+     * @param warehouse
+     * @return the preference cost of the warehouse
+     * @throws IllegalArgumentException if the warehouse was never added
+     */
+    protected int getPreferenceCost(Warehouse warehouse){
+        int index = indexOf(warehouse);
+        if(index == -1){
+            throw new IllegalArgumentException();
+        }
+        return costs[index];
+    }
+
+    /**
+     * @return all the warehouses, in the order they were added
+     */
+    protected Warehouse[] getWarehouses(){
+        return Arrays.copyOf(warehouses, warehouseCount);
+    }
+
+    /**
+     * Publish every subsequent change to stock levels in every warehouse on the given feed
+     * @param changeFeed
+     */
+    protected void setChangeFeed(ChangeFeed changeFeed){
+        this.changeFeed = changeFeed;
+        for(int i = 0; i < warehouseCount; i++){
+            warehouses[i].setChangeFeed(changeFeed);
+        }
+    }
+
+    /**
+     * Add a product to every warehouse that doesn't stock it yet, at the given stock level
+     * @param product
+     * @param desiredStockLevel
+     * @return true if the product wasn't in the catalog before
+     */
+    protected boolean addNewProduct(Product product, int desiredStockLevel){
+        boolean added = false;
+        for(int i = 0; i < warehouseCount; i++){
+            Warehouse warehouse = warehouses[i];
+            if(!warehouse.isInCatalog(product.getItemNumber())){
+                try{
+                    warehouse.addNewProductToWarehouse(product, desiredStockLevel);
+                    index(product.getItemNumber(), warehouse);
+                    added = true;
+                }catch(IllegalArgumentException e){
+
+                }
+            }
+        }
+        return added && catalog.add(product);
+    }
+
+    /**
+     * @return all unique Products stocked in any of the warehouses
+     */
+    protected Set<Product> getAllProductsInCatalog(){
+        return Collections.unmodifiableSet(catalog);
+    }
+
+    /**
+     * @param productNumber
+     * @return true if any warehouse stocks the product
+     */
+    protected boolean isInCatalog(int productNumber){
+        return productSlots.containsKey(productNumber);
+    }
+
+    /**
+     * @return how many different products are stocked in any of the warehouses
+     */
+    protected int getProductCount(){
+        return productSlots.size();
+    }
+
+    /**
+     * @param index between zero and {@link #getProductCount()}, exclusive
+     * @return the product number at the given index, counting in the order products were first stocked
+     */
+    protected int getProductNumber(int index){
+        if(index < 0 || index >= productSlots.size()){
+            throw new IndexOutOfBoundsException();
+        }
+        return productNumbers[index];
+    }
+
+    /**
+     * @param productNumber
+     * @return how many of the given product are in stock across all warehouses
+     */
+    protected int getStockLevel(int productNumber){
+        int slot = productSlots.get(productNumber, -1);
+        if(slot == -1){
+            return 0;
+        }
+        int stock = 0;
+        Warehouse[] inStock = inStockByProduct[slot];
+        for(int i = 0; i < inStockCounts[slot]; i++){
+            stock += inStock[i].getStockLevel(productNumber);
+        }
+        return stock;
+    }
+
+    /**
+     * @param productNumber
+     * @return true if any warehouse can restock the product
+     */
+    protected boolean isRestockable(int productNumber){
+        int slot = productSlots.get(productNumber, -1);
+        return slot != -1 && firstRestockable[slot] != -1;
+    }
+
+    /**
+     * Set the new default stock level for the given product in every warehouse that can restock it
+     * @param productNumber
+     * @param quantity
+     * @throws IllegalArgumentException if no warehouse can restock the product
+     */
+    protected void setDefaultStockLevel(int productNumber, int quantity){
+        if(!isRestockable(productNumber)){
+            throw new IllegalArgumentException();
+        }
+        for(Warehouse warehouse : warehousesFor(productNumber)){
+            if(warehouse.isRestockable(productNumber)){
+                warehouse.setDefaultStockLevel(productNumber, quantity);
+            }
+        }
+    }
+
+    /**
+     * Set the default stock level for the given product in the cheapest warehouse that can restock it, and a separate level in every other warehouse that can.
+     * Routing takes stock from the cheapest warehouses first and restocks at the cheapest one that can, so that warehouse serves most of the demand for the product.
+     * @param productNumber
+     * @param primaryQuantity the default stock level for the cheapest warehouse that can restock the product
+     * @param otherQuantity the default stock level for the other warehouses that can restock the product
+     * @throws IllegalArgumentException if no warehouse can restock the product
+     */
+    protected void setDefaultStockLevels(int productNumber, int primaryQuantity, int otherQuantity){
+        if(!isRestockable(productNumber)){
+            throw new IllegalArgumentException();
+        }
+        boolean primary = true;
+        for(Warehouse warehouse : warehousesFor(productNumber)){
+            if(warehouse.isRestockable(productNumber)){
+                warehouse.setDefaultStockLevel(productNumber, primary ? primaryQuantity : otherQuantity);
+                primary = false;
+            }
+        }
+    }
+
+    /**
+     * add the given product to the "do not restock" set of every warehouse that stocks it
+     * @param productNumber
+     */
+    protected void doNotRestock(int productNumber){
+        int slot = productSlots.get(productNumber, -1);
+        if(slot == -1){
+            return;
+        }
+        for(Warehouse warehouse : warehousesByProduct[slot]){
+            warehouse.doNotRestock(productNumber);
+        }
+        firstRestockable[slot] = -1;
+    }
+
+    /**
+     * @param productNumber
+     * @param quantity
+     * @return true if the warehouses together have enough of the product in stock, or one of them can restock it
+     */
+    protected boolean canFulfill(int productNumber, int quantity){
+        int slot = productSlots.get(productNumber, -1);
+        if(slot == -1){
+            return false;
+        }
+        if(firstRestockable[slot] != -1){
+            return true;
+        }
+        int available = 0;
+        Warehouse[] inStock = inStockByProduct[slot];
+        for(int i = 0; i < inStockCounts[slot] && available < quantity; i++){
+            available += inStock[i].getStockLevel(productNumber);
+        }
+        return available >= quantity;
+    }
+
+    /**
+     * Fulfill an order line, taking stock from the cheapest warehouses first and splitting the line across warehouses if needed.
+     * If there isn't enough in stock across all warehouses, restock the cheapest warehouse that can restock the product and fulfill the whole line there.
+     * @param productNumber
+     * @param quantity
+     * @throws IllegalArgumentException if {@link #canFulfill(int, int)} returns false
+     */
+    protected void fulfill(int productNumber, int quantity){
+        int slot = productSlots.get(productNumber, -1);
+        if(slot == -1){
+            throw new IllegalArgumentException();
+        }
+        Warehouse[] inStock = inStockByProduct[slot];
+        int count = inStockCounts[slot];
+        int available = 0;
+        int needed = 0;
+        while(needed < count && available < quantity){
+            available += inStock[needed].getStockLevel(productNumber);
+            needed++;
+        }
+        if(available >= quantity){
+            //every warehouse but possibly the last one used is emptied, so the emptied ones are a prefix of the in-stock list
+            int remaining = quantity;
+            int emptied = 0;
+            for(int i = 0; i < needed && remaining > 0; i++){
+                int stock = inStock[i].getStockLevel(productNumber);
+                int take = Math.min(stock, remaining);
+                inStock[i].fulfill(productNumber, take);
+                remaining -= take;
+                if(take == stock){
+                    emptied++;
+                }
+            }
+            System.arraycopy(inStock, emptied, inStock, 0, count - emptied);
+            Arrays.fill(inStock, count - emptied, count, null);
+            inStockCounts[slot] = count - emptied;
+            return;
+        }
+        if(firstRestockable[slot] == -1){
+            throw new IllegalArgumentException();
+        }
+        Warehouse warehouse = warehousesByProduct[slot][firstRestockable[slot]];
+        warehouse.restock(productNumber, quantity);
+        warehouse.fulfill(productNumber, quantity);
+        updateInStock(slot, warehouse, productNumber);
+    }
+
+    /**
+     * Add the given warehouse to, or remove it from, the product's in-stock list, depending on whether it has the product in stock
+     */
+    private void updateInStock(int slot, Warehouse warehouse, int productNumber){
+        Warehouse[] inStock = inStockByProduct[slot];
+        int count = inStockCounts[slot];
+        int position = 0;
+        while(position < count && inStock[position] != warehouse){
+            position++;
+        }
+        boolean listed = position < count;
+        if(warehouse.getStockLevel(productNumber) > 0){
+            if(listed){
+                return;
+            }
+            int cost = costOf(warehouse);
+            position = count;
+            while(position > 0 && costOf(inStock[position - 1]) > cost){
+                position--;
+            }
+            System.arraycopy(inStock, position, inStock, position + 1, count - position);
+            inStock[position] = warehouse;
+            inStockCounts[slot] = count + 1;
+        }else if(listed){
+            System.arraycopy(inStock, position + 1, inStock, position, count - position - 1);
+            inStock[count - 1] = null;
+            inStockCounts[slot] = count - 1;
+        }
+    }
+
+    /**
+     * Rebuild the product's in-stock list and cheapest restockable warehouse from the warehouses carrying it
+     */
+    private void refresh(int slot){
+        int productNumber = productNumbers[slot];
+        Warehouse[] carrying = warehousesByProduct[slot];
+        Warehouse[] inStock = new Warehouse[carrying.length];
+        int count = 0;
+        int restockable = -1;
+        for(int i = 0; i < carrying.length; i++){
+            if(carrying[i].getStockLevel(productNumber) > 0){
+                inStock[count++] = carrying[i];
+            }
+            if(restockable == -1 && carrying[i].isRestockable(productNumber)){
+                restockable = i;
+            }
+        }
+        inStockByProduct[slot] = inStock;
+        inStockCounts[slot] = count;
+        firstRestockable[slot] = restockable;
+    }
+
+    /**
+     * @return the warehouses stocking the given product, cheapest first
+     */
+    private Warehouse[] warehousesFor(int productNumber){
+        int slot = productSlots.get(productNumber, -1);
+        return slot == -1 ? NONE : warehousesByProduct[slot];
+    }
+
+    /**
+     * Record that the given warehouse stocks the given product, keeping the product's warehouses sorted by preference cost
+     */
+    private void index(int productNumber, Warehouse warehouse){
+        int slot = productSlots.get(productNumber, -1);
+        if(slot == -1){
+            slot = productSlots.size();
+            productSlots.put(productNumber, slot);
+            if(slot == warehousesByProduct.length){
+                warehousesByProduct = Arrays.copyOf(warehousesByProduct, slot * 2);
+                inStockByProduct = Arrays.copyOf(inStockByProduct, slot * 2);
+                inStockCounts = Arrays.copyOf(inStockCounts, slot * 2);
+                firstRestockable = Arrays.copyOf(firstRestockable, slot * 2);
+                productNumbers = Arrays.copyOf(productNumbers, slot * 2);
+            }
+            warehousesByProduct[slot] = new Warehouse[]{warehouse};
+            productNumbers[slot] = productNumber;
+            refresh(slot);
+            return;
+        }
+        Warehouse[] carrying = warehousesByProduct[slot];
+        for(Warehouse w : carrying){
+            if(w == warehouse){
+                return;
+            }
+        }
+        int cost = costOf(warehouse);
+        int position = carrying.length;
+        while(position > 0 && costOf(carrying[position - 1]) > cost){
+            position--;
+        }
+        Warehouse[] updated = new Warehouse[carrying.length + 1];
+        System.arraycopy(carrying, 0, updated, 0, position);
+        updated[position] = warehouse;
+        System.arraycopy(carrying, position, updated, position + 1, carrying.length - position);
+        warehousesByProduct[slot] = updated;
+        refresh(slot);
+    }
+
+    private int costOf(Warehouse warehouse){
+        return costs[indexes.get(warehouse)];
+    }
+
+    private int indexOf(Warehouse warehouse){
+        Integer index = indexes.get(warehouse);
+        return index == null ? -1 : index;
+    }
+}
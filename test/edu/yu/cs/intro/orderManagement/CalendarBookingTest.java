@@ -0,0 +1,158 @@
+package edu.yu.cs.intro.orderManagement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CalendarBookingTest {
+
+    private static final int NOW = 1000;
+
+    private Service repair;
+    private Service install;
+    private ServiceProvider alice;
+    private ServiceProvider bob;
+    private OrderManagementSystem oms;
+
+    @BeforeEach
+    public void setUp(){
+        repair = new Service(50, 4, 1, "repair");
+        install = new Service(80, 2, 2, "install");
+        Set<Service> both = new HashSet<>();
+        both.add(repair);
+        both.add(install);
+        Set<Service> repairOnly = new HashSet<>();
+        repairOnly.add(repair);
+        alice = new ServiceProvider("alice", 1, both);
+        bob = new ServiceProvider("bob", 2, repairOnly);
+        Set<ServiceProvider> providers = new HashSet<>();
+        providers.add(alice);
+        providers.add(bob);
+        oms = new FixedClockOrderManagementSystem(providers);
+        oms.setCapacityMode(CapacityMode.CALENDAR);
+    }
+
+    @Test
+    public void instancesGoToTheEarliestFreeSlotAcrossProviders(){
+        Order order = new Order();
+        order.addToOrder(repair, 3);
+        oms.placeOrder(order);
+        List<Booking> bookings = order.getBookings();
+        assertEquals(3, bookings.size());
+        assertEquals(NOW, bookings.get(0).getStartHour());
+        assertEquals(NOW, bookings.get(1).getStartHour());
+        assertEquals(NOW + 4, bookings.get(2).getStartHour());
+        assertTrue(bookings.get(0).getServiceProvider() != bookings.get(1).getServiceProvider());
+    }
+
+    @Test
+    public void aCancelledSlotIsOfferedAgain(){
+        oms.setBookingHorizonHours(8);
+        Order first = new Order();
+        first.addToOrder(repair, 2);
+        oms.placeOrder(first);
+        //both providers are now booked for the first four hours, and installs can only go to alice
+        Order failing = new Order();
+        failing.addToOrder(repair, 1);
+        failing.addToOrder(install, 3);
+        assertThrows(IllegalStateException.class, () -> oms.placeOrder(failing));
+        assertTrue(failing.getBookings().isEmpty());
+
+        Order next = new Order();
+        next.addToOrder(repair, 2);
+        oms.placeOrder(next);
+        assertEquals(NOW + 4, next.getBookings().get(0).getStartHour());
+        assertEquals(NOW + 4, next.getBookings().get(1).getStartHour());
+    }
+
+    @Test
+    public void slotsBeyondTheHorizonAreRejected(){
+        //only slots starting in the first four hours are allowed, and each provider fits just one repair there
+        oms.setBookingHorizonHours(4);
+        Order order = new Order();
+        order.addToOrder(repair, 3);
+        assertThrows(IllegalStateException.class, () -> oms.placeOrder(order));
+        assertTrue(order.getBookings().isEmpty());
+        assertFalse(order.isCompleted());
+        //everything was rolled back, so the full horizon is free again
+        assertTrue(alice.getCalendar().isFree(NOW, 8));
+        assertTrue(bob.getCalendar().isFree(NOW, 8));
+    }
+
+    @Test
+    public void rollbackKeepsBookingsFromAnEarlierPlacement(){
+        oms.setBookingHorizonHours(4);
+        Order order = new Order();
+        order.addToOrder(install, 1);
+        oms.placeOrder(order);
+        assertEquals(1, order.getBookings().size());
+        Booking earlier = order.getBookings().get(0);
+
+        //only one more install fits within the horizon
+        order.addToOrder(install, 2);
+        assertThrows(IllegalStateException.class, () -> oms.placeOrder(order));
+        assertEquals(1, order.getBookings().size());
+        assertEquals(earlier, order.getBookings().get(0));
+        assertFalse(alice.getCalendar().isFree(earlier.getStartHour(), 2));
+        assertTrue(alice.getCalendar().isFree(earlier.getEndHour(), 2));
+    }
+
+    @Test
+    public void bookingsAndCancellationsArePublished(){
+        oms.setBookingHorizonHours(4);
+        ChangeFeed.Subscription subscription = oms.getChangeFeed().subscribe();
+        Order order = new Order();
+        order.addToOrder(install, 3);
+        assertThrows(IllegalStateException.class, () -> oms.placeOrder(order));
+        List<ChangeEvent> events = subscription.poll(10);
+        assertEquals(4, events.size());
+        assertEvent(events.get(0), ChangeEvent.Type.PROVIDER_BOOKED, alice.getId(), NOW);
+        assertEvent(events.get(1), ChangeEvent.Type.PROVIDER_BOOKED, alice.getId(), NOW + 2);
+        assertEvent(events.get(2), ChangeEvent.Type.PROVIDER_UNBOOKED, alice.getId(), NOW);
+        assertEvent(events.get(3), ChangeEvent.Type.PROVIDER_UNBOOKED, alice.getId(), NOW + 2);
+    }
+
+    @Test
+    public void retryOfAPlacedOrderGetsTheOriginalBookings(){
+        Order original = new Order("abc");
+        original.addToOrder(repair, 2);
+        oms.placeOrder(original);
+        Order retry = new Order("abc");
+        retry.addToOrder(repair, 2);
+        oms.placeOrder(retry);
+        assertTrue(retry.isCompleted());
+        assertEquals(original.getBookings(), retry.getBookings());
+
+        //the retry booked nothing new
+        Order other = new Order();
+        other.addToOrder(repair, 1);
+        oms.placeOrder(other);
+        assertEquals(NOW + 4, other.getBookings().get(0).getStartHour());
+    }
+
+    private static void assertEvent(ChangeEvent event, ChangeEvent.Type type, int key, int value){
+        assertEquals(type, event.getType());
+        assertEquals(0, event.getSite());
+        assertEquals(key, event.getKey());
+        assertEquals(value, event.getValue());
+    }
+
+    private static class FixedClockOrderManagementSystem extends OrderManagementSystem {
+        private FixedClockOrderManagementSystem(Set<ServiceProvider> providers){
+            super(new HashSet<>(), 10, providers);
+        }
+
+        @Override
+        protected int currentHour(){
+            return NOW;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package edu.yu.cs.intro.orderManagement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+public class ChangeFeedTest {
+
+    @Test
+    public void pollReturnsEventsInBatches(){
+        ChangeFeed feed = new ChangeFeed(8);
+        ChangeFeed.Subscription subscription = feed.subscribe();
+        for(int i = 0; i < 5; i++){
+            feed.publish(ChangeEvent.Type.STOCK_LEVEL, 1, 100 + i, i);
+        }
+        List<ChangeEvent> first = subscription.poll(3);
+        assertEquals(3, first.size());
+        assertEquals(0, first.get(0).getSequence());
+        assertEquals(100, first.get(0).getKey());
+        assertEquals(1, first.get(0).getSite());
+        List<ChangeEvent> second = subscription.poll(10);
+        assertEquals(2, second.size());
+        assertEquals(4, second.get(1).getSequence());
+        assertTrue(subscription.poll(10).isEmpty());
+        assertEquals(0, subscription.getMissedEvents());
+    }
+
+    @Test
+    public void capacityIsRoundedUpToAPowerOfTwo(){
+        assertEquals(8, new ChangeFeed(5).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new ChangeFeed(0));
+    }
+
+    @Test
+    public void slowSubscriberSkipsOverwrittenEventsAndCountsThem(){
+        ChangeFeed feed = new ChangeFeed(8);
+        ChangeFeed.Subscription subscription = feed.subscribe();
+        for(int i = 0; i < 20; i++){
+            feed.publish(ChangeEvent.Type.STOCK_LEVEL, i, i);
+        }
+        List<ChangeEvent> batch = subscription.poll(100);
+        assertEquals(8, batch.size());
+        assertEquals(12, batch.get(0).getSequence());
+        assertEquals(19, batch.get(7).getSequence());
+        assertEquals(12, subscription.getMissedEvents());
+        assertEquals(20, subscription.getSequence());
+    }
+
+    @Test
+    public void resumingFromTheOldestSequenceMissesNothing(){
+        ChangeFeed feed = new ChangeFeed(8);
+        for(int i = 0; i < 20; i++){
+            feed.publish(ChangeEvent.Type.STOCK_LEVEL, i, i);
+        }
+        assertEquals(12, feed.getOldestSequence());
+        ChangeFeed.Subscription subscription = feed.subscribe(feed.getOldestSequence());
+        assertEquals(8, subscription.poll(100).size());
+        assertEquals(0, subscription.getMissedEvents());
+    }
+
+    @Test
+    public void subscriptionResumesWhereAPreviousOneLeftOff(){
+        ChangeFeed feed = new ChangeFeed(16);
+        ChangeFeed.Subscription first = feed.subscribe(0);
+        for(int i = 0; i < 6; i++){
+            feed.publish(ChangeEvent.Type.STOCK_LEVEL, i, i);
+        }
+        first.poll(4);
+        ChangeFeed.Subscription resumed = feed.subscribe(first.getSequence());
+        List<ChangeEvent> rest = resumed.poll(100);
+        assertEquals(2, rest.size());
+        assertEquals(4, rest.get(0).getSequence());
+        assertThrows(IllegalArgumentException.class, () -> feed.subscribe(7));
+    }
+
+    @Test
+    public void lagCountsUnreadEvents(){
+        ChangeFeed feed = new ChangeFeed(8);
+        ChangeFeed.Subscription subscription = feed.subscribe();
+        feed.publish(ChangeEvent.Type.PROVIDER_ASSIGNED, 7, 0);
+        feed.publish(ChangeEvent.Type.PROVIDER_RELEASED, 7, 0);
+        assertEquals(2, subscription.getLag());
+        subscription.poll(1);
+        assertEquals(1, subscription.getLag());
+    }
+
+    @Test
+    public void concurrentPollNeverReturnsTornEvents() throws InterruptedException {
+        ChangeFeed feed = new ChangeFeed(64);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread publisher = new Thread(() -> {
+            for(int i = 0; i < 2_000_000; i++){
+                feed.publish(ChangeEvent.Type.STOCK_LEVEL, i, i, ~i);
+            }
+            done.set(true);
+        });
+        ChangeFeed.Subscription subscription = feed.subscribe();
+        publisher.start();
+        long received = 0;
+        long previous = -1;
+        while(!done.get() || subscription.getLag() > 0){
+            for(ChangeEvent event : subscription.poll(32)){
+                //every field of an event must come from the same publish
+                assertEquals((int)event.getSequence(), event.getKey());
+                assertEquals(event.getKey(), event.getSite());
+                assertEquals(~event.getKey(), event.getValue());
+                assertTrue(event.getSequence() > previous);
+                previous = event.getSequence();
+                received++;
+            }
+        }
+        publisher.join();
+        assertEquals(2_000_000, received + subscription.getMissedEvents());
+    }
+}
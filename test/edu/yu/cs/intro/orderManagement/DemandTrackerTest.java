@@ -0,0 +1,128 @@
+package edu.yu.cs.intro.orderManagement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DemandTrackerTest {
+
+    private static final int HOT = 1000;
+    private static final int COLD = 2000;
+    private static final int PERIOD_LINES = 10;
+
+    private WarehouseRouter router;
+    private Warehouse warehouse;
+    private ChangeFeed.Subscription subscription;
+    /**
+     * the latest default stock level published for each site and product
+     */
+    private Map<Long,Integer> defaultLevels;
+
+    @BeforeEach
+    public void setUp(){
+        router = new WarehouseRouter();
+        defaultLevels = new HashMap<>();
+        warehouse = new Warehouse();
+        router.addWarehouse(warehouse, 10);
+        router.addNewProduct(new Product("hot", 1, HOT), 7);
+        router.addNewProduct(new Product("cold", 1, COLD), 7);
+        subscription = feedOf(router).subscribe();
+    }
+
+    @Test
+    public void constantDemandIsEstimatedExactlyFromTheFirstPeriod(){
+        DemandTracker tracker = tracker(0, 1000, 16);
+        for(int period = 0; period < 5; period++){
+            recordPeriod(tracker, HOT, 3);
+            assertEquals(30, tracker.getDemandRate(HOT), 1e-9);
+            assertEquals(60, tracker.getTargetStockLevel(HOT));
+            tracker.endPeriod(router);
+            assertEquals(60, defaultLevel(warehouse.getSiteId(), HOT));
+        }
+    }
+
+    @Test
+    public void targetIsClampedToTheLevelBounds(){
+        DemandTracker tracker = tracker(5, 40, 16);
+        for(int i = 0; i < PERIOD_LINES; i++){
+            tracker.record(HOT, i == 0 ? 100 : 0);
+        }
+        tracker.record(COLD, 1);
+        assertEquals(40, tracker.getTargetStockLevel(HOT));
+        assertEquals(5, tracker.getTargetStockLevel(COLD));
+        assertEquals(5, tracker.getTargetStockLevel(3000));
+    }
+
+    @Test
+    public void productsThatStopSellingAreLoweredByTheSweep(){
+        //only one ordered product is adjusted per period, so the cold product is only ever reached by the sweep
+        DemandTracker tracker = tracker(1, 1000, 1);
+        recordPeriod(tracker, COLD, 5);
+        tracker.endPeriod(router);
+        assertEquals(100, defaultLevel(warehouse.getSiteId(), COLD));
+        for(int period = 0; period < 30; period++){
+            recordPeriod(tracker, HOT, 1);
+            tracker.endPeriod(router);
+        }
+        int level = defaultLevel(warehouse.getSiteId(), COLD);
+        assertTrue(level < 10, "cold product still at " + level);
+        assertEquals(20, defaultLevel(warehouse.getSiteId(), HOT));
+    }
+
+    @Test
+    public void targetIsSetAtTheCheapestRestockableWarehouseOnly(){
+        Warehouse closing = new Warehouse();
+        closing.addNewProductToWarehouse(new Product("hot", 1, HOT), 7);
+        closing.doNotRestock(HOT);
+        router.addWarehouse(closing, 0);
+        Warehouse expensive = new Warehouse();
+        router.addWarehouse(expensive, 20);
+        router.addNewProduct(new Product("hot", 1, HOT), 7);
+        subscription = feedOf(router).subscribe();
+
+        DemandTracker tracker = tracker(2, 1000, 16);
+        recordPeriod(tracker, HOT, 3);
+        tracker.endPeriod(router);
+        assertEquals(-1, defaultLevel(closing.getSiteId(), HOT));
+        assertEquals(60, defaultLevel(warehouse.getSiteId(), HOT));
+        assertEquals(2, defaultLevel(expensive.getSiteId(), HOT));
+    }
+
+    private static DemandTracker tracker(int minLevel, int maxLevel, int adjustmentsPerPeriod){
+        return new DemandTracker(minLevel, maxLevel, PERIOD_LINES, 2.0, 0.2, 1024, adjustmentsPerPeriod);
+    }
+
+    private static void recordPeriod(DemandTracker tracker, int productNumber, int quantityPerLine){
+        for(int i = 0; i < PERIOD_LINES; i++){
+            tracker.record(productNumber, quantityPerLine);
+        }
+        assertTrue(tracker.isPeriodOver());
+    }
+
+    /**
+     * @return the latest default stock level published for the product at the site, or -1 if none was
+     */
+    private int defaultLevel(int site, int productNumber){
+        for(ChangeEvent event : subscription.poll(1 << 14)){
+            if(event.getType() == ChangeEvent.Type.DEFAULT_STOCK_LEVEL){
+                defaultLevels.put(levelKey(event.getSite(), event.getKey()), event.getValue());
+            }
+        }
+        return defaultLevels.getOrDefault(levelKey(site, productNumber), -1);
+    }
+
+    private static long levelKey(int site, int productNumber){
+        return ((long)site << 32) | (productNumber & 0xFFFFFFFFL);
+    }
+
+    private static ChangeFeed feedOf(WarehouseRouter router){
+        ChangeFeed feed = new ChangeFeed();
+        router.setChangeFeed(feed);
+        return feed;
+    }
+}
@@ -0,0 +1,101 @@
+package edu.yu.cs.intro.orderManagement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class OrderDedupCacheTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    /**
+     * a cache whose clock only moves when the test moves it
+     */
+    private static class ManualClockCache extends OrderDedupCache {
+        private long time;
+
+        ManualClockCache(int maxEntries, long ttlMillis){
+            super(maxEntries, ttlMillis);
+        }
+
+        @Override
+        protected long now(){
+            return time;
+        }
+    }
+
+    @Test
+    public void claimReportsInFlightUntilCompleted(){
+        OrderDedupCache cache = new OrderDedupCache();
+        assertEquals(OrderDedupCache.Status.CLAIMED, cache.claim("a"));
+        assertEquals(OrderDedupCache.Status.IN_FLIGHT, cache.claim("a"));
+        cache.complete("a");
+        assertEquals(OrderDedupCache.Status.DONE, cache.claim("a"));
+    }
+
+    @Test
+    public void releaseLetsTheIdBeClaimedAgain(){
+        OrderDedupCache cache = new OrderDedupCache();
+        cache.claim("a");
+        cache.release("a");
+        assertEquals(0, cache.size());
+        assertEquals(OrderDedupCache.Status.CLAIMED, cache.claim("a"));
+    }
+
+    @Test
+    public void releaseDoesNotForgetACompletedOrder(){
+        OrderDedupCache cache = new OrderDedupCache();
+        cache.claim("a");
+        cache.complete("a");
+        cache.release("a");
+        assertEquals(OrderDedupCache.Status.DONE, cache.claim("a"));
+    }
+
+    @Test
+    public void idsExpireAfterTheTimeToLive(){
+        ManualClockCache cache = new ManualClockCache(100, 10);
+        cache.claim("a");
+        cache.complete("a");
+        cache.time = 9 * MILLIS;
+        assertEquals(OrderDedupCache.Status.DONE, cache.claim("a"));
+        cache.time = 10 * MILLIS;
+        assertEquals(OrderDedupCache.Status.CLAIMED, cache.claim("a"));
+    }
+
+    @Test
+    public void oldestIdsAreEvictedOnceTheCacheIsFull(){
+        OrderDedupCache cache = new OrderDedupCache(2, 60_000);
+        cache.claim("a");
+        cache.complete("a");
+        cache.claim("b");
+        cache.complete("b");
+        cache.claim("c");
+        assertEquals(2, cache.size());
+        assertEquals(OrderDedupCache.Status.CLAIMED, cache.claim("a"));
+    }
+
+    @Test
+    public void releasedEntriesStillCountTowardsTheBound(){
+        OrderDedupCache cache = new OrderDedupCache(3, 60_000);
+        cache.claim("a");
+        cache.complete("a");
+        cache.claim("b");
+        cache.release("b");
+        cache.claim("c");
+        //only a and c are remembered, but b's entry is still queued, so claiming d evicts a
+        cache.claim("d");
+        assertEquals(OrderDedupCache.Status.CLAIMED, cache.claim("a"));
+    }
+
+    @Test
+    public void aStormOfFailingOrdersStaysBounded(){
+        OrderDedupCache cache = new OrderDedupCache(3, 60_000);
+        cache.claim("kept");
+        cache.complete("kept");
+        for(int i = 0; i < 1000; i++){
+            cache.claim("failed" + i);
+            cache.release("failed" + i);
+        }
+        assertEquals(OrderDedupCache.Status.CLAIMED, cache.claim("kept"));
+    }
+}
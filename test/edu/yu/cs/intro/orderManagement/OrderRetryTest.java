@@ -0,0 +1,72 @@
+package edu.yu.cs.intro.orderManagement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class OrderRetryTest {
+
+    private Product product;
+    private OrderManagementSystem oms;
+
+    @BeforeEach
+    public void setUp(){
+        product = new Product("widget", 1.5, 1000);
+        Set<Product> products = new HashSet<>();
+        products.add(product);
+        oms = new OrderManagementSystem(products, 10, new HashSet<>());
+    }
+
+    @Test
+    public void retryOfAPlacedOrderIsNotFulfilledAgain(){
+        Order original = new Order("abc");
+        original.addToOrder(product, 4);
+        oms.placeOrder(original);
+        Order retry = new Order("abc");
+        retry.addToOrder(product, 4);
+        oms.placeOrder(retry);
+        assertTrue(retry.isCompleted());
+        assertEquals(6, oms.warehouses.getStockLevel(1000));
+    }
+
+    @Test
+    public void failedPlacementReleasesItsId(){
+        oms.discontinueItem(product);
+        Order tooBig = new Order("abc");
+        tooBig.addToOrder(product, 11);
+        assertThrows(IllegalArgumentException.class, () -> oms.placeOrder(tooBig));
+        assertFalse(tooBig.isCompleted());
+
+        Order retry = new Order("abc");
+        retry.addToOrder(product, 3);
+        oms.placeOrder(retry);
+        assertTrue(retry.isCompleted());
+        assertEquals(7, oms.warehouses.getStockLevel(1000));
+    }
+
+    @Test
+    public void retryWhileTheOriginalIsInFlightIsRejectedDistinctly(){
+        oms.placedOrders.claim("abc");
+        Order retry = new Order("abc");
+        retry.addToOrder(product, 4);
+        assertThrows(OrderInFlightException.class, () -> oms.placeOrder(retry));
+        assertFalse(retry.isCompleted());
+        assertEquals(10, oms.warehouses.getStockLevel(1000));
+    }
+
+    @Test
+    public void ordersWithoutAnIdAreNeverDeduplicated(){
+        Order first = new Order();
+        first.addToOrder(product, 4);
+        oms.placeOrder(first);
+        oms.placeOrder(first);
+        assertEquals(2, oms.warehouses.getStockLevel(1000));
+    }
+}
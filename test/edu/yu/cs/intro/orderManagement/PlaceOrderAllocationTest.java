@@ -0,0 +1,84 @@
+package edu.yu.cs.intro.orderManagement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that placing an order allocates nothing once warmed up, by reading the current thread's allocated bytes counter around it
+ */
+public class PlaceOrderAllocationTest {
+
+    private static final int WARMUP_ORDERS = 200_000;
+    private static final int MEASURED_ORDERS = 10_000;
+
+    @Test
+    public void placeOrderWithProductsAndServicesDoesNotAllocate(){
+        Product product = new Product("widget", 1.5, 100_000);
+        Product restocked = new Product("gadget", 2.5, 5_000);
+        Service service = new Service(10, 2, 700, "install");
+        Set<Product> products = new HashSet<>();
+        products.add(product);
+        products.add(restocked);
+        Set<ServiceProvider> serviceProviders = new HashSet<>();
+        for(int i = 1; i <= 8; i++){
+            Set<Service> services = new HashSet<>();
+            services.add(service);
+            serviceProviders.add(new ServiceProvider("provider" + i, 1000 + i, services));
+        }
+        OrderManagementSystem oms = new OrderManagementSystem(products, 50, serviceProviders);
+        Order order = new Order();
+        order.addToOrder(product, 30);
+        //more than the default stock level, so every placement restocks inline
+        order.addToOrder(restocked, 200);
+        order.addToOrder(service, 2);
+
+        assertEquals(0, allocatedBytes(oms, order));
+    }
+
+    @Test
+    public void placeOrderAcrossWarehousesWithDemandTrackingDoesNotAllocate(){
+        Product product = new Product("widget", 1.5, 100_000);
+        Set<Product> products = new HashSet<>();
+        products.add(product);
+        WarehouseRouter warehouses = new WarehouseRouter();
+        warehouses.addWarehouse(new Warehouse(), 2);
+        warehouses.addWarehouse(new Warehouse(), 1);
+        warehouses.addWarehouse(new Warehouse(), 3);
+        OrderManagementSystem oms = new OrderManagementSystem(products, 20, new HashSet<>(), warehouses);
+        oms.setDemandTracker(new DemandTracker(5, 500, 100, 2.0, 0.2, 1024, 64));
+        Order order = new Order();
+        //more than any single warehouse stocks, so lines are split and restocked
+        order.addToOrder(product, 45);
+
+        assertEquals(0, allocatedBytes(oms, order));
+    }
+
+    /**
+     * @return bytes allocated by the current thread while placing the order MEASURED_ORDERS times, after WARMUP_ORDERS placements
+     */
+    private static long allocatedBytes(OrderManagementSystem oms, Order order){
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        for(int i = 0; i < WARMUP_ORDERS; i++){
+            oms.placeOrder(order);
+        }
+        //whatever reading the counter itself allocates is subtracted below
+        long start = threads.getThreadAllocatedBytes(threadId);
+        long overhead = threads.getThreadAllocatedBytes(threadId) - start;
+        start = threads.getThreadAllocatedBytes(threadId);
+        for(int i = 0; i < MEASURED_ORDERS; i++){
+            oms.placeOrder(order);
+        }
+        return threads.getThreadAllocatedBytes(threadId) - start - overhead;
+    }
+}
@@ -0,0 +1,87 @@
+package edu.yu.cs.intro.orderManagement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class ProviderCalendarTest {
+
+    @Test
+    public void emptyCalendarIsFreeFromTheStart(){
+        ProviderCalendar calendar = new ProviderCalendar();
+        assertEquals(100, calendar.earliestStart(100, 5, 200));
+        assertEquals(100, calendar.firstFreeHour(100));
+        assertTrue(calendar.isFree(100, 5));
+    }
+
+    @Test
+    public void earliestStartSkipsGapsThatAreTooShort(){
+        ProviderCalendar calendar = new ProviderCalendar();
+        calendar.book(100, 2);
+        calendar.book(103, 2);
+        calendar.book(107, 1);
+        //101..102 booked, 103 free for one hour, 105..106 free for two hours, 108 on free
+        assertEquals(102, calendar.earliestStart(100, 1, 200));
+        assertEquals(105, calendar.earliestStart(100, 2, 200));
+        assertEquals(108, calendar.earliestStart(100, 3, 200));
+        assertEquals(102, calendar.firstFreeHour(100));
+    }
+
+    @Test
+    public void earliestStartRespectsTheBeforeHourBound(){
+        ProviderCalendar calendar = new ProviderCalendar();
+        calendar.book(100, 10);
+        assertEquals(-1, calendar.earliestStart(100, 1, 110));
+        assertEquals(110, calendar.earliestStart(100, 1, 111));
+        assertEquals(-1, calendar.earliestStart(120, 1, 120));
+    }
+
+    @Test
+    public void hoursBeforeTheFirstBookingAreFree(){
+        ProviderCalendar calendar = new ProviderCalendar();
+        calendar.book(100, 2);
+        assertEquals(90, calendar.earliestStart(90, 10, 200));
+        //doesn't fit before the booking
+        assertEquals(102, calendar.earliestStart(95, 10, 200));
+        assertEquals(95, calendar.firstFreeHour(95));
+        assertTrue(calendar.isFree(90, 10));
+        assertFalse(calendar.isFree(95, 6));
+    }
+
+    @Test
+    public void bookingBeforeTheBaseHourRebases(){
+        ProviderCalendar calendar = new ProviderCalendar();
+        calendar.book(100, 2);
+        calendar.book(90, 3);
+        assertFalse(calendar.isFree(90, 1));
+        assertFalse(calendar.isFree(92, 1));
+        assertTrue(calendar.isFree(93, 7));
+        assertFalse(calendar.isFree(101, 1));
+        assertEquals(93, calendar.earliestStart(90, 7, 200));
+        assertEquals(102, calendar.earliestStart(90, 8, 200));
+    }
+
+    @Test
+    public void releaseFreesTheHours(){
+        ProviderCalendar calendar = new ProviderCalendar();
+        calendar.book(100, 4);
+        calendar.release(101, 2);
+        assertEquals(101, calendar.earliestStart(100, 2, 200));
+        assertFalse(calendar.isFree(100, 1));
+        assertFalse(calendar.isFree(103, 1));
+    }
+
+    @Test
+    public void overlappingBookingIsRejected(){
+        ProviderCalendar calendar = new ProviderCalendar();
+        calendar.book(100, 4);
+        assertThrows(IllegalStateException.class, () -> calendar.book(103, 2));
+        assertThrows(IllegalStateException.class, () -> calendar.book(98, 3));
+        assertThrows(IllegalArgumentException.class, () -> calendar.book(200, 0));
+        calendar.book(104, 1);
+        calendar.book(98, 2);
+    }
+}
@@ -0,0 +1,131 @@
+package edu.yu.cs.intro.orderManagement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class WarehouseRouterTest {
+
+    private static final int WIDGET = 1000;
+
+    private Product widget;
+    private Warehouse cheap;
+    private Warehouse middle;
+    private Warehouse expensive;
+    private WarehouseRouter router;
+
+    @BeforeEach
+    public void setUp(){
+        widget = new Product("widget", 1.5, WIDGET);
+        cheap = new Warehouse();
+        middle = new Warehouse();
+        expensive = new Warehouse();
+        router = new WarehouseRouter();
+        router.addWarehouse(expensive, 30);
+        router.addWarehouse(cheap, 10);
+        router.addWarehouse(middle, 20);
+        router.addNewProduct(widget, 5);
+    }
+
+    @Test
+    public void lineIsTakenFromTheCheapestWarehouseFirst(){
+        router.fulfill(WIDGET, 3);
+        assertEquals(2, cheap.getStockLevel(WIDGET));
+        assertEquals(5, middle.getStockLevel(WIDGET));
+        assertEquals(5, expensive.getStockLevel(WIDGET));
+    }
+
+    @Test
+    public void lineIsSplitAcrossWarehouses(){
+        router.fulfill(WIDGET, 8);
+        assertEquals(0, cheap.getStockLevel(WIDGET));
+        assertEquals(2, middle.getStockLevel(WIDGET));
+        assertEquals(5, expensive.getStockLevel(WIDGET));
+        //the emptied warehouse is skipped from now on
+        router.fulfill(WIDGET, 4);
+        assertEquals(0, cheap.getStockLevel(WIDGET));
+        assertEquals(0, middle.getStockLevel(WIDGET));
+        assertEquals(3, expensive.getStockLevel(WIDGET));
+        assertEquals(3, router.getStockLevel(WIDGET));
+    }
+
+    @Test
+    public void lineLargerThanAllStockIsRestockedAtTheCheapestRestockableWarehouse(){
+        Warehouse closing = new Warehouse();
+        closing.addNewProductToWarehouse(widget, 2);
+        closing.doNotRestock(WIDGET);
+        router.addWarehouse(closing, 0);
+        router.fulfill(WIDGET, 20);
+        assertEquals(2, closing.getStockLevel(WIDGET));
+        assertEquals(0, cheap.getStockLevel(WIDGET));
+        assertEquals(5, middle.getStockLevel(WIDGET));
+        assertEquals(5, expensive.getStockLevel(WIDGET));
+    }
+
+    @Test
+    public void restockedWarehouseIsRoutedToAgain(){
+        router.setDefaultStockLevel(WIDGET, 30);
+        router.fulfill(WIDGET, 5);
+        assertEquals(0, cheap.getStockLevel(WIDGET));
+        //only 10 left in stock, so cheap is restocked to its default level and fulfills the whole line
+        router.fulfill(WIDGET, 11);
+        assertEquals(19, cheap.getStockLevel(WIDGET));
+        router.fulfill(WIDGET, 3);
+        assertEquals(16, cheap.getStockLevel(WIDGET));
+        assertEquals(5, middle.getStockLevel(WIDGET));
+        assertEquals(26, router.getStockLevel(WIDGET));
+    }
+
+    @Test
+    public void nothingRestockableAndNotEnoughInStockIsRejected(){
+        router.doNotRestock(WIDGET);
+        assertFalse(router.isRestockable(WIDGET));
+        assertTrue(router.canFulfill(WIDGET, 15));
+        assertFalse(router.canFulfill(WIDGET, 16));
+        assertThrows(IllegalArgumentException.class, () -> router.fulfill(WIDGET, 16));
+        assertEquals(15, router.getStockLevel(WIDGET));
+    }
+
+    @Test
+    public void changingAPreferenceCostReordersTheWarehouses(){
+        router.setPreferenceCost(expensive, 0);
+        router.fulfill(WIDGET, 7);
+        assertEquals(0, expensive.getStockLevel(WIDGET));
+        assertEquals(3, cheap.getStockLevel(WIDGET));
+        assertEquals(5, middle.getStockLevel(WIDGET));
+        assertEquals(0, router.getPreferenceCost(expensive));
+    }
+
+    @Test
+    public void warehouseThatAlreadyHoldsProductsIsRoutedTo(){
+        Product gadget = new Product("gadget", 2.5, 2000);
+        Warehouse stocked = new Warehouse();
+        stocked.addNewProductToWarehouse(gadget, 4);
+        stocked.addNewProductToWarehouse(new Product("widget", 1.5, WIDGET), 7);
+        router.addWarehouse(stocked, 0);
+        assertTrue(router.getAllProductsInCatalog().contains(gadget));
+        assertEquals(4, router.getStockLevel(2000));
+        assertEquals(22, router.getStockLevel(WIDGET));
+        router.fulfill(WIDGET, 8);
+        assertEquals(0, stocked.getStockLevel(WIDGET));
+        assertEquals(4, cheap.getStockLevel(WIDGET));
+    }
+
+    @Test
+    public void warehouseCanOnlyBelongToOneRouter(){
+        assertThrows(IllegalArgumentException.class, () -> router.addWarehouse(cheap, 5));
+        WarehouseRouter other = new WarehouseRouter();
+        assertThrows(IllegalArgumentException.class, () -> other.addWarehouse(cheap, 5));
+    }
+
+    @Test
+    public void siteIdsStartAtOne(){
+        assertEquals(1, expensive.getSiteId());
+        assertEquals(2, cheap.getSiteId());
+        assertEquals(3, middle.getSiteId());
+    }
+}